@@ -0,0 +1,72 @@
+package com.jozufozu.flywheel.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jozufozu.flywheel.light.LightProvider;
+import com.jozufozu.flywheel.light.LightVolume;
+import com.jozufozu.flywheel.util.box.GridAlignedBB;
+
+/**
+ * Filling light volumes, as done when contraptions are created and when light updates come in.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LightVolumeBenchmark {
+
+	/**
+	 * Side length of the cubic volume, in blocks.
+	 */
+	@Param({ "8", "32" })
+	public int size;
+
+	/**
+	 * A world where the light levels vary from block to block, but cost nothing to look up.
+	 */
+	private final LightProvider world = (type, x, y, z) -> (x * 31 + y * 17 + z * 7 + type.ordinal()) & 15;
+
+	private LightVolume volume;
+	private GridAlignedBB changed;
+
+	@Setup
+	public void setup() {
+		volume = new LightVolume(new GridAlignedBB(0, 0, 0, size, size, size));
+
+		// a light update touching one section's worth of the volume
+		int half = size / 2;
+		changed = new GridAlignedBB(half / 2, half / 2, half / 2, half / 2 + half, half / 2 + half, half / 2 + half);
+	}
+
+	@TearDown
+	public void teardown() {
+		volume.delete();
+	}
+
+	@Benchmark
+	public LightVolume initialize() {
+		volume.initialize(world);
+		return volume;
+	}
+
+	@Benchmark
+	public LightVolume copyLight() {
+		volume.copyLight(world, changed);
+		return volume;
+	}
+}
@@ -0,0 +1,108 @@
+package com.jozufozu.flywheel.benchmark;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.lwjgl.system.MemoryUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jozufozu.flywheel.backend.model.DirectVertexConsumer;
+import com.jozufozu.flywheel.core.materials.oriented.OrientedData;
+import com.jozufozu.flywheel.core.materials.oriented.OrientedType;
+import com.jozufozu.flywheel.core.model.ModelTransformer;
+import com.jozufozu.flywheel.util.DiffuseLightTable;
+import com.mojang.blaze3d.vertex.DefaultVertexFormat;
+import com.mojang.blaze3d.vertex.PoseStack;
+import com.mojang.blaze3d.vertex.VertexFormat;
+import com.mojang.math.Vector3f;
+
+/**
+ * The CPU side of the batching engine: transforming one instance of a model into a vertex buffer.
+ * Runs with the SIMD transform, pass {@code -Dflywheel.disableVectorTransform=true} to the forks to measure the scalar one.
+ * Apart from the output consumer each call creates, nothing here should allocate. Run with {@code -prof gc} to check.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelTransformerBenchmark {
+
+	@Param({ "24", "384" })
+	public int vertices;
+
+	@Param({ "true", "false" })
+	public boolean diffuse;
+
+	private final VertexFormat format = DefaultVertexFormat.BLOCK;
+
+	private SyntheticModel model;
+	private ModelTransformer transformer;
+	private ModelTransformer.Params params;
+	private PoseStack stack;
+	private ByteBuffer output;
+
+	private final OrientedType orientedType = new OrientedType();
+	private OrientedData oriented;
+
+	@Setup
+	public void setup() {
+		model = new SyntheticModel(vertices);
+		transformer = new ModelTransformer(model);
+		transformer.context.outputColorDiffuse = diffuse;
+
+		params = new ModelTransformer.Params();
+		params.loadDefault();
+		params.translate(1, 2, 3)
+				.multiply(Vector3f.YP.rotationDegrees(30))
+				.light(0xF000F0);
+
+		stack = new PoseStack();
+		stack.translate(-100, -64, -100);
+
+		output = MemoryUtil.memAlloc(vertices * format.getVertexSize());
+
+		oriented = orientedType.create()
+				.setPosition(1, 2, 3)
+				.setPivot(0.5f, 0.5f, 0.5f)
+				.setRotation(Vector3f.XP.rotationDegrees(45));
+	}
+
+	@TearDown
+	public void teardown() {
+		MemoryUtil.memFree(output);
+		model.delete();
+	}
+
+	@Benchmark
+	public DirectVertexConsumer renderInto() {
+		DirectVertexConsumer consumer = new DirectVertexConsumer(output, format, vertices);
+		transformer.renderInto(params, stack, consumer, DiffuseLightTable.DEFAULT);
+		return consumer;
+	}
+
+	/**
+	 * What the batching engine does for each instance: build the transform from instance data, then render.
+	 */
+	@Benchmark
+	public DirectVertexConsumer orientedInstance() {
+		params.loadDefault();
+		orientedType.transform(oriented, params);
+
+		DirectVertexConsumer consumer = new DirectVertexConsumer(output, format, vertices);
+		transformer.renderInto(params, stack, consumer, DiffuseLightTable.DEFAULT);
+		return consumer;
+	}
+}
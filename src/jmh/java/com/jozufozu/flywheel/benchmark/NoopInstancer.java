@@ -0,0 +1,37 @@
+package com.jozufozu.flywheel.benchmark;
+
+import java.util.function.Supplier;
+
+import com.jozufozu.flywheel.api.InstanceData;
+import com.jozufozu.flywheel.api.Instancer;
+
+/**
+ * Owns instance data created outside of any engine, so {@link InstanceData#markDirty()} has somewhere to go.
+ */
+public class NoopInstancer<D extends InstanceData> implements Instancer<D> {
+
+	private final Supplier<D> factory;
+
+	public NoopInstancer(Supplier<D> factory) {
+		this.factory = factory;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public D createInstance() {
+		return (D) factory.get().setOwner(this);
+	}
+
+	@Override
+	public void stealInstance(D inOther) {
+		inOther.setOwner(this);
+	}
+
+	@Override
+	public void notifyDirty() {
+	}
+
+	@Override
+	public void notifyRemoval() {
+	}
+}
@@ -0,0 +1,66 @@
+package com.jozufozu.flywheel.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jozufozu.flywheel.Flywheel;
+import com.jozufozu.flywheel.core.source.SourceFile;
+import com.jozufozu.flywheel.core.source.parse.Import;
+
+import net.minecraft.resources.ResourceLocation;
+
+/**
+ * Parsing shader sources, as done for every file on resource reload.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SourceFileBenchmark {
+
+	@Param({ "model.vert", "block.frag", "core/matutils.glsl", "context/world.glsl" })
+	public String file;
+
+	private ResourceLocation name;
+	private String source;
+
+	@Setup
+	public void setup() throws IOException {
+		name = Flywheel.rl(file);
+
+		String path = "/assets/flywheel/flywheel/shaders/" + file;
+		try (InputStream stream = SourceFileBenchmark.class.getResourceAsStream(path)) {
+			if (stream == null) {
+				throw new IOException("Missing shader source " + path);
+			}
+
+			source = new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+		}
+	}
+
+	@Benchmark
+	public SourceFile parse() {
+		SourceFile parsed = new SourceFile(null, name, source);
+
+		// imports register themselves globally, don't let them pile up
+		Import.IMPORTS.clear();
+
+		return parsed;
+	}
+}
@@ -0,0 +1,107 @@
+package com.jozufozu.flywheel.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.lwjgl.system.MemoryUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jozufozu.flywheel.api.struct.StructWriter;
+import com.jozufozu.flywheel.backend.gl.buffer.VecBuffer;
+import com.jozufozu.flywheel.core.materials.model.ModelData;
+import com.jozufozu.flywheel.core.materials.model.ModelType;
+import com.jozufozu.flywheel.core.materials.oriented.OrientedData;
+import com.jozufozu.flywheel.core.materials.oriented.OrientedType;
+import com.mojang.math.Vector3f;
+
+/**
+ * Serializing instance data into an off-heap buffer, as done for every dirty instance before upload.
+ *
+ * <p>
+ *     Mixins aren't applied here, so matrices are written through the {@code MatrixWrite} fallback.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StructWriterBenchmark {
+
+	@Param({ "1024", "16384" })
+	public int instances;
+
+	private final ModelType modelType = new ModelType();
+	private final OrientedType orientedType = new OrientedType();
+
+	private ModelData[] models;
+	private OrientedData[] oriented;
+	private VecBuffer modelBuffer;
+	private VecBuffer orientedBuffer;
+
+	@Setup
+	public void setup() {
+		NoopInstancer<ModelData> modelOwner = new NoopInstancer<>(modelType::create);
+		NoopInstancer<OrientedData> orientedOwner = new NoopInstancer<>(orientedType::create);
+
+		models = new ModelData[instances];
+		oriented = new OrientedData[instances];
+
+		for (int i = 0; i < instances; i++) {
+			models[i] = modelOwner.createInstance();
+			models[i].translate(i, i * 0.5, -i)
+					.multiply(Vector3f.YP.rotationDegrees(i))
+					.setBlockLight(i & 15);
+
+			oriented[i] = orientedOwner.createInstance();
+			oriented[i].setPosition(i, i * 0.5f, -i)
+					.setPivot(0.5f, 0.5f, 0.5f)
+					.setRotation(Vector3f.XP.rotationDegrees(i));
+		}
+
+		// the unsafe writers need direct buffers
+		modelBuffer = new VecBuffer(MemoryUtil.memAlloc(instances * modelType.getLayout().getStride()));
+		orientedBuffer = new VecBuffer(MemoryUtil.memAlloc(instances * orientedType.getLayout().getStride()));
+	}
+
+	@TearDown
+	public void teardown() {
+		MemoryUtil.memFree(modelBuffer.unwrap());
+		MemoryUtil.memFree(orientedBuffer.unwrap());
+	}
+
+	@Benchmark
+	public VecBuffer modelWriter() {
+		modelBuffer.position(0);
+		StructWriter<ModelData> writer = modelType.getWriter(modelBuffer);
+
+		for (ModelData model : models) {
+			writer.write(model);
+		}
+
+		return modelBuffer;
+	}
+
+	@Benchmark
+	public VecBuffer orientedWriter() {
+		orientedBuffer.position(0);
+		StructWriter<OrientedData> writer = orientedType.getWriter(orientedBuffer);
+
+		for (OrientedData data : oriented) {
+			writer.write(data);
+		}
+
+		return orientedBuffer;
+	}
+}
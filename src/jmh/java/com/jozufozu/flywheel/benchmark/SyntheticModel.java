@@ -0,0 +1,59 @@
+package com.jozufozu.flywheel.benchmark;
+
+import java.nio.ByteBuffer;
+
+import org.lwjgl.system.MemoryUtil;
+
+import com.jozufozu.flywheel.api.vertex.VertexList;
+import com.jozufozu.flywheel.api.vertex.VertexType;
+import com.jozufozu.flywheel.core.Formats;
+import com.jozufozu.flywheel.core.model.Model;
+import com.jozufozu.flywheel.core.vertex.BlockWriterUnsafe;
+
+/**
+ * A block format model filled with deterministic garbage, so benchmarks don't need a baked model.
+ */
+public class SyntheticModel implements Model {
+
+	private final int vertexCount;
+	private final ByteBuffer buffer;
+	private final VertexList reader;
+
+	public SyntheticModel(int vertexCount) {
+		this.vertexCount = vertexCount;
+		this.buffer = MemoryUtil.memAlloc(Formats.BLOCK.byteOffset(vertexCount));
+
+		BlockWriterUnsafe writer = Formats.BLOCK.createWriter(buffer);
+		for (int i = 0; i < vertexCount; i++) {
+			float t = i / (float) vertexCount;
+			byte c = (byte) (i * 37);
+			writer.putVertex(t, 1 - t, t * t, t, 1 - t, c, c, c, (byte) 0xFF, i & 0xFF, 0, 1, 0);
+		}
+
+		this.reader = Formats.BLOCK.createReader(buffer, vertexCount);
+	}
+
+	@Override
+	public String name() {
+		return "synthetic_" + vertexCount;
+	}
+
+	@Override
+	public VertexList getReader() {
+		return reader;
+	}
+
+	@Override
+	public int vertexCount() {
+		return vertexCount;
+	}
+
+	@Override
+	public VertexType getType() {
+		return Formats.BLOCK;
+	}
+
+	public void delete() {
+		MemoryUtil.memFree(buffer);
+	}
+}
@@ -0,0 +1,77 @@
+package com.jozufozu.flywheel.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.jozufozu.flywheel.backend.instancing.IntRangeConsumer;
+import com.jozufozu.flywheel.backend.instancing.ParallelTaskEngine;
+
+/**
+ * Round trips through the task engine: submit a batch of jobs, then wait for all of them at a sync point.
+ * {@link #parallelForAndSync()} hands the same work over as a single range and lets the engine split it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskEngineBenchmark {
+
+	@Param({ "16", "256" })
+	public int tasks;
+
+	/**
+	 * How much busy work each task does, in {@link Blackhole#consumeCPU} tokens. 0 measures pure overhead.
+	 */
+	@Param({ "0", "1000" })
+	public int work;
+
+	private ParallelTaskEngine engine;
+	private Runnable job;
+	private IntRangeConsumer range;
+
+	@Setup
+	public void setup() {
+		engine = new ParallelTaskEngine("Benchmark");
+		engine.startWorkers();
+
+		int tokens = work;
+		job = () -> Blackhole.consumeCPU(tokens);
+		range = (from, to) -> Blackhole.consumeCPU((long) tokens * (to - from));
+	}
+
+	@TearDown
+	public void teardown() {
+		engine.stopWorkers();
+	}
+
+	@Benchmark
+	public void submitAndSync() {
+		for (int i = 0; i < tasks; i++) {
+			engine.submit(job);
+		}
+
+		engine.syncPoint();
+	}
+
+	@Benchmark
+	public void parallelForAndSync() {
+		engine.parallelFor(0, tasks, range);
+
+		engine.syncPoint();
+	}
+}
@@ -4,17 +4,21 @@ public abstract class InstanceData {
 
 	private Instancer<?> owner;
 
+	private int index = -1;
 	private boolean dirty;
 	private boolean removed;
 
 	public final void markDirty() {
+		// the owner already heard about this one
+		if (dirty) return;
+
 		dirty = true;
-		owner.notifyDirty();
+		owner.notifyDirty(this);
 	}
 
 	public final void delete() {
 		removed = true;
-		owner.notifyRemoval();
+		owner.notifyRemoval(this);
 	}
 
 	public final boolean checkDirtyAndClear() {
@@ -38,4 +42,18 @@ public abstract class InstanceData {
 		this.owner = owner;
 		return this;
 	}
+
+	/**
+	 * @return Where the owner keeps this instance, or -1 if it hasn't said.
+	 */
+	public final int getIndex() {
+		return index;
+	}
+
+	/**
+	 * Only for use by the owner, so it can find this instance again without searching.
+	 */
+	public final void setIndex(int index) {
+		this.index = index;
+	}
 }
@@ -42,6 +42,20 @@ public interface Instancer<D extends InstanceData> {
 	 */
 	void notifyDirty();
 
+	/**
+	 * Notify the Instancer that one particular instance needs updating.
+	 *
+	 * <p>
+	 *     Called once each time the instance goes from clean to dirty. Instancers that track where each instance is
+	 *     can upload just the instances that changed.
+	 * </p>
+	 *
+	 * @param instance An instance belonging to this Instancer.
+	 */
+	default void notifyDirty(InstanceData instance) {
+		notifyDirty();
+	}
+
 	/**
 	 * Notify the Instances that some of its data should be removed.
 	 *
@@ -51,6 +65,27 @@ public interface Instancer<D extends InstanceData> {
 	 */
 	void notifyRemoval();
 
+	/**
+	 * Notify the Instancer that one particular instance should be removed.
+	 *
+	 * <p>
+	 *     Instancers that track where each instance is can remove it without looking at the others.
+	 * </p>
+	 *
+	 * @param instance An instance that belonged to this Instancer until now.
+	 */
+	default void notifyRemoval(InstanceData instance) {
+		notifyRemoval();
+	}
+
+	/**
+	 * @param instance Any instance.
+	 * @return {@code true} if the given instance is one of this Instancer's copies.
+	 */
+	default boolean owns(InstanceData instance) {
+		return instance.getOwner() == this;
+	}
+
 	/**
 	 * Populate arr with new instances of this model.
 	 * @param arr An array to fill.
@@ -0,0 +1,25 @@
+package com.jozufozu.flywheel.api;
+
+/**
+ * Draws copies of a model in less and less detail the further they are from the camera.
+ * <p>
+ *     Behind the scenes there's one {@link Instancer} per {@link LodLevel level}. As the camera moves, each copy is
+ *     moved to the instancer for its distance with {@link Instancer#stealInstance}. The InstanceData you get back is
+ *     the same object at every level, so you can keep changing it and {@link InstanceData#delete() delete} it like any
+ *     other.
+ * </p>
+ *
+ * @param <D> the data that represents a copy of the model.
+ */
+public interface LodInstancer<D extends InstanceData> {
+	/**
+	 * @param x The world position the distance to the camera is measured from.
+	 * @return a handle to a new copy of the model.
+	 */
+	D createInstance(double x, double y, double z);
+
+	/**
+	 * Tell the LodInstancer that a copy has moved. Only needed for copies that move around.
+	 */
+	void setPosition(D instance, double x, double y, double z);
+}
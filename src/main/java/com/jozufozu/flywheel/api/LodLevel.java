@@ -0,0 +1,25 @@
+package com.jozufozu.flywheel.api;
+
+import java.util.function.Supplier;
+
+import com.jozufozu.flywheel.core.model.Model;
+
+/**
+ * One model in a {@link LodInstancer}.
+ *
+ * @param model A factory for the model drawn at this level.
+ * @param maxDistance How far from the camera this level is used, in blocks. Beyond that the next level takes over.
+ */
+public record LodLevel(Supplier<Model> model, float maxDistance) {
+
+	public static LodLevel of(Supplier<Model> model, float maxDistance) {
+		return new LodLevel(model, maxDistance);
+	}
+
+	/**
+	 * @return A level used at any distance, for the end of the list.
+	 */
+	public static LodLevel rest(Supplier<Model> model) {
+		return new LodLevel(model, Float.POSITIVE_INFINITY);
+	}
+}
@@ -23,6 +23,38 @@ public interface Material<D extends InstanceData> {
 	 */
 	Instancer<D> model(Object key, Supplier<Model> modelSupplier);
 
+	/**
+	 * Get a set of instancers that draw less detailed models further from the camera. Calling this method twice with
+	 * the same key will return the same LodInstancer.
+	 *
+	 * <p>
+	 *     Materials that don't support levels of detail draw every copy with the most detailed model, through the same
+	 *     instancer for the same key.
+	 * </p>
+	 *
+	 * @param key    An object that uniquely identifies the set of models.
+	 * @param levels The models from the most to the least detailed, by increasing {@link LodLevel#maxDistance()}.
+	 * @return A LodInstancer for the given models.
+	 */
+	default LodInstancer<D> lod(Object key, LodLevel... levels) {
+		if (levels.length == 0) {
+			throw new IllegalArgumentException("A LodInstancer needs at least one level");
+		}
+
+		Instancer<D> instancer = model(Pair.of(key, 0), levels[0].model());
+
+		return new LodInstancer<>() {
+			@Override
+			public D createInstance(double x, double y, double z) {
+				return instancer.createInstance();
+			}
+
+			@Override
+			public void setPosition(D instance, double x, double y, double z) {
+			}
+		};
+	}
+
 	default Instancer<D> getModel(PartialModel partial, BlockState referenceState) {
 		return model(partial, () -> new BlockModel(partial.get(), referenceState));
 	}
@@ -1,6 +1,8 @@
 package com.jozufozu.flywheel.api.struct;
 
 import com.jozufozu.flywheel.backend.gl.buffer.VecBuffer;
+import com.jozufozu.flywheel.util.box.FloatBox;
+import com.mojang.math.Vector4f;
 
 import net.minecraft.resources.ResourceLocation;
 
@@ -14,4 +16,21 @@ public interface Instanced<S> extends StructType<S> {
 
 	ResourceLocation getProgramSpec();
 
+	/**
+	 * Grow the given bounds to contain a model placed by the given struct.
+	 *
+	 * <p>
+	 *     This is used to cull entire instancers against the view frustum, so it must be conservative.
+	 *     The default implementation gives up, which means instancers of this type are never culled.
+	 * </p>
+	 *
+	 * @param struct The instance.
+	 * @param modelSphere The bounding sphere of the model in model space, with the radius in w.
+	 * @param bounds The bounds to grow.
+	 * @return {@code false} if the struct's extent can't be determined.
+	 */
+	default boolean expandBounds(S struct, Vector4f modelSphere, FloatBox bounds) {
+		return false;
+	}
+
 }
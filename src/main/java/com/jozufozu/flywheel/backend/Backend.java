@@ -82,6 +82,8 @@ public class Backend {
 			case OFF -> true;
 			case BATCHING -> !usingShaders;
 			case INSTANCING -> !usingShaders && GlCompat.getInstance().instancedArraysSupported();
+			case HEADLESS -> true;
+			case HYBRID -> !usingShaders && GlCompat.getInstance().instancedArraysSupported();
 		};
 
 		return canUseEngine ? preferredChoice : FlwEngine.OFF;
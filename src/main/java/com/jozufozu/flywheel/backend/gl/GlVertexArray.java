@@ -36,7 +36,14 @@ public class GlVertexArray extends GlObject {
 	}
 
 	public void bindAttributes(int startIndex, BufferLayout type) {
-		int offset = 0;
+		bindAttributes(startIndex, type, 0);
+	}
+
+	/**
+	 * @param baseOffset Where in the bound buffer the first element starts.
+	 */
+	public void bindAttributes(int startIndex, BufferLayout type, int baseOffset) {
+		int offset = baseOffset;
 		for (LayoutItem spec : type.getLayoutItems()) {
 			spec.vertexAttribPointer(type.getStride(), startIndex, offset);
 			startIndex += spec.attributeCount();
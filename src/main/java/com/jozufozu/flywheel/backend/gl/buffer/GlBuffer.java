@@ -3,6 +3,7 @@ package com.jozufozu.flywheel.backend.gl.buffer;
 import java.nio.ByteBuffer;
 
 import org.lwjgl.opengl.GL20;
+import org.lwjgl.opengl.GL31;
 
 import com.jozufozu.flywheel.backend.gl.GlObject;
 import com.jozufozu.flywheel.backend.gl.versioned.GlCompat;
@@ -21,9 +22,21 @@ public abstract class GlBuffer extends GlObject {
 	 * @return A buffer that will be persistent if the driver supports it.
 	 */
 	public static GlBuffer requestPersistent(GlBufferType type) {
+		return requestPersistent(type, 1);
+	}
+
+	/**
+	 * Request a Persistent mapped buffer split into a ring of segments.
+	 *
+	 * @param type The type of buffer you want.
+	 * @param segments How many segments a persistent buffer should have. Classic mapped buffers only ever have one.
+	 * @return A buffer that will be persistent if the driver supports it.
+	 * @see PersistentGlBuffer
+	 */
+	public static GlBuffer requestPersistent(GlBufferType type, int segments) {
 		if (GlCompat.getInstance()
                 .bufferStorageSupported()) {
-			return new PersistentGlBuffer(type);
+			return new PersistentGlBuffer(type, segments);
 		} else {
 			return new MappedGlBuffer(type);
 		}
@@ -54,12 +67,34 @@ public abstract class GlBuffer extends GlObject {
 		return capacity;
 	}
 
+	/**
+	 * @return The byte offset of the segment that was last written and should be drawn from.
+	 */
+	public long getSegmentOffset() {
+		return 0;
+	}
+
+	/**
+	 * @return How many segments the buffer is split into. Each one is {@link #getCapacity()} bytes.
+	 */
+	public int getSegmentCount() {
+		return 1;
+	}
+
 	public MappedBuffer getBuffer() {
 		return getBuffer(0, capacity);
 	}
 
 	public abstract MappedBuffer getBuffer(long offset, long length);
 
+	/**
+	 * Map a range where only the parts passed to {@link MappedBuffer#flushRange} have to reach the GPU.
+	 * Buffers that can't do that map it like {@link #getBuffer(long, long)}.
+	 */
+	public MappedBuffer getBufferExplicit(long offset, long length) {
+		return getBuffer(offset, length);
+	}
+
 	/**
 	 * Ensure that the buffer has at least enough room to store size bytes.
 	 *
@@ -75,6 +110,19 @@ public abstract class GlBuffer extends GlObject {
 		return false;
 	}
 
+	/**
+	 * Copy part of the buffer to another part of it without going through the CPU.
+	 *
+	 * @param from The byte offset to copy from.
+	 * @param to The byte offset to copy to. The two ranges must not overlap.
+	 * @param length The number of bytes.
+	 */
+	public void copyWithin(long from, long to, long length) {
+		GlBufferType.COPY_READ_BUFFER.bind(handle());
+		GL31.glCopyBufferSubData(GL31.GL_COPY_READ_BUFFER, GL31.GL_COPY_READ_BUFFER, from, to, length);
+		GlBufferType.COPY_READ_BUFFER.unbind();
+	}
+
 	/**
 	 * Call this after all draw calls using this buffer are complete.
 	 */
@@ -3,18 +3,41 @@ package com.jozufozu.flywheel.backend.gl.buffer;
 import java.nio.ByteBuffer;
 
 import org.lwjgl.opengl.GL15;
+import org.lwjgl.opengl.GL30;
 
 public class MappedBuffer extends VecBuffer implements AutoCloseable {
 
 	protected final long offset;
 	protected final long length;
 	protected final Mappable owner;
+	/**
+	 * Whether the range was mapped with {@code GL_MAP_FLUSH_EXPLICIT_BIT}.
+	 */
+	protected final boolean explicitFlush;
 
 	public MappedBuffer(Mappable owner, ByteBuffer internal, long offset, long length) {
+		this(owner, internal, offset, length, false);
+	}
+
+	public MappedBuffer(Mappable owner, ByteBuffer internal, long offset, long length, boolean explicitFlush) {
 		this.internal = internal;
 		this.owner = owner;
 		this.offset = offset;
 		this.length = length;
+		this.explicitFlush = explicitFlush;
+	}
+
+	/**
+	 * Make the changes to part of the mapped range available to the GPU once the buffer is unmapped. Only does
+	 * anything for ranges mapped with {@link GlBuffer#getBufferExplicit}, everything else is always made available.
+	 *
+	 * @param offset The offset in the buffer, not in the mapped range.
+	 * @param length The number of bytes.
+	 */
+	public void flushRange(long offset, long length) {
+		if (!explicitFlush || internal == null) return;
+
+		GL30.glFlushMappedBufferRange(owner.getType().glEnum, offset - this.offset, length);
 	}
 
 	/**
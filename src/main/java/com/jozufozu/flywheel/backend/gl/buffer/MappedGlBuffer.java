@@ -39,6 +39,17 @@ public class MappedGlBuffer extends GlBuffer implements Mappable {
 		return new MappedBuffer(this, byteBuffer, offset, length);
 	}
 
+	@Override
+	public MappedBuffer getBufferExplicit(long offset, long length) {
+		ByteBuffer byteBuffer = GL30.glMapBufferRange(type.glEnum, offset, length, GL30.GL_MAP_WRITE_BIT | GL30.GL_MAP_FLUSH_EXPLICIT_BIT);
+
+		if (byteBuffer == null) {
+			throw new GlException(GlError.poll(), "Could not map buffer");
+		}
+
+		return new MappedBuffer(this, byteBuffer, offset, length, true);
+	}
+
 	@Override
 	public GlBufferType getType() {
 		return type;
@@ -5,6 +5,7 @@ import static org.lwjgl.opengl.GL44.GL_MAP_COHERENT_BIT;
 import static org.lwjgl.opengl.GL44.GL_MAP_PERSISTENT_BIT;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 import org.lwjgl.opengl.GL30;
 
@@ -13,48 +14,97 @@ import com.jozufozu.flywheel.backend.gl.error.GlError;
 import com.jozufozu.flywheel.backend.gl.error.GlException;
 import com.jozufozu.flywheel.backend.gl.versioned.GlCompat;
 
+/**
+ * A buffer mapped once for its whole life.
+ *
+ * <p>
+ *     The storage can be split into a ring of segments, each {@link #getCapacity()} bytes long and each with its own
+ *     fence. The first time the buffer is mapped in a frame it moves on to the next segment, which the GPU finished
+ *     reading frames ago, so writing almost never waits. Whatever is drawn has to read from
+ *     {@link #getSegmentOffset()}, and anything written to one segment has to be written to the others too when
+ *     they come around.
+ * </p>
+ */
 public class PersistentGlBuffer extends GlBuffer implements Mappable {
 
-	private MappedBuffer buffer;
+	private final int segments;
+	private MappedBuffer[] views;
+	private final GlFence[] fences;
 	int flags;
 
 	long size;
-	GlFence fence;
+
+	/**
+	 * The segment being written and drawn from.
+	 */
+	private int current;
+	/**
+	 * Whether {@link #current} was already moved on this frame.
+	 */
+	private boolean advanced;
 
 	public PersistentGlBuffer(GlBufferType type) {
+		this(type, 1);
+	}
+
+	/**
+	 * @param segments How many segments to split the storage into, usually one more than the frames the GPU can lag
+	 *                 behind.
+	 */
+	public PersistentGlBuffer(GlBufferType type, int segments) {
 		super(type);
 
 		flags = GL_MAP_WRITE_BIT | GL_MAP_PERSISTENT_BIT | GL_MAP_COHERENT_BIT;
-		fence = new GlFence();
+
+		this.segments = segments;
+		fences = new GlFence[segments];
+		for (int i = 0; i < segments; i++) {
+			fences[i] = new GlFence();
+		}
 	}
 
 	@Override
 	public void doneForThisFrame() {
-		fence.post();
+		// the segment we drew from is busy until the GPU is done with this frame, whether it was written or not
+		fences[current].post();
+		advanced = false;
 	}
 
 	@Override
 	protected void alloc(long size) {
 		this.size = size;
 
-		if (buffer != null) {
+		if (views != null) {
 			deleteInternal(handle());
 			_create();
 
 			bind();
 		}
 
-		fence.clear();
+		for (GlFence fence : fences) {
+			fence.clear();
+		}
 
-        GlCompat.getInstance().bufferStorage.bufferStorage(type, size, flags);
+		long total = size * segments;
 
-		ByteBuffer byteBuffer = GL30.glMapBufferRange(type.glEnum, 0, size, flags);
+		GlCompat.getInstance().bufferStorage.bufferStorage(type, total, flags);
+
+		ByteBuffer byteBuffer = GL30.glMapBufferRange(type.glEnum, 0, total, flags);
 
 		if (byteBuffer == null) {
 			throw new GlException(GlError.poll(), "Could not map buffer");
 		}
 
-		buffer = new MappedBuffer(this, byteBuffer, 0, size);
+		views = new MappedBuffer[segments];
+		for (int i = 0; i < segments; i++) {
+			ByteBuffer view = byteBuffer.slice((int) (i * size), (int) size)
+					.order(ByteOrder.nativeOrder());
+			views[i] = new MappedBuffer(this, view, 0, size);
+		}
+
+		// whoever grew the buffer is about to fill the first segment
+		current = 0;
+		advanced = true;
 	}
 
 	@Override
@@ -64,14 +114,30 @@ public class PersistentGlBuffer extends GlBuffer implements Mappable {
 
 	@Override
 	public MappedBuffer getBuffer(long offset, long length) {
+		if (!advanced) {
+			current = (current + 1) % segments;
+			advanced = true;
+		}
+
+		fences[current].waitSync();
 
-		fence.waitSync();
+		MappedBuffer buffer = views[current];
 
 		buffer.position((int) offset);
 
 		return buffer;
 	}
 
+	@Override
+	public long getSegmentOffset() {
+		return current * size;
+	}
+
+	@Override
+	public int getSegmentCount() {
+		return segments;
+	}
+
 	@Override
 	public GlBufferType getType() {
 		return type;
@@ -81,4 +147,13 @@ public class PersistentGlBuffer extends GlBuffer implements Mappable {
 	public boolean isPersistent() {
 		return true;
 	}
+
+	@Override
+	protected void deleteInternal(int handle) {
+		super.deleteInternal(handle);
+
+		for (GlFence fence : fences) {
+			fence.clear();
+		}
+	}
 }
@@ -0,0 +1,63 @@
+package com.jozufozu.flywheel.backend.gl.versioned;
+
+import org.lwjgl.opengl.ARBBaseInstance;
+import org.lwjgl.opengl.GL42;
+import org.lwjgl.opengl.GLCapabilities;
+
+/**
+ * Instanced draws that start reading instance attributes at some instance other than the first.
+ */
+public enum BaseInstance implements GlVersioned {
+	GL42_BASE_INSTANCE {
+		@Override
+		public boolean supported(GLCapabilities caps) {
+			return caps.OpenGL42;
+		}
+
+		@Override
+		public void drawArraysInstancedBaseInstance(int mode, int first, int count, int instanceCount, int baseInstance) {
+			GL42.glDrawArraysInstancedBaseInstance(mode, first, count, instanceCount, baseInstance);
+		}
+
+		@Override
+		public void drawElementsInstancedBaseVertexBaseInstance(int mode, int count, int type, long indices, int instanceCount, int baseVertex, int baseInstance) {
+			GL42.glDrawElementsInstancedBaseVertexBaseInstance(mode, count, type, indices, instanceCount, baseVertex, baseInstance);
+		}
+	},
+	ARB_BASE_INSTANCE {
+		@Override
+		public boolean supported(GLCapabilities caps) {
+			return caps.GL_ARB_base_instance;
+		}
+
+		@Override
+		public void drawArraysInstancedBaseInstance(int mode, int first, int count, int instanceCount, int baseInstance) {
+			ARBBaseInstance.glDrawArraysInstancedBaseInstance(mode, first, count, instanceCount, baseInstance);
+		}
+
+		@Override
+		public void drawElementsInstancedBaseVertexBaseInstance(int mode, int count, int type, long indices, int instanceCount, int baseVertex, int baseInstance) {
+			ARBBaseInstance.glDrawElementsInstancedBaseVertexBaseInstance(mode, count, type, indices, instanceCount, baseVertex, baseInstance);
+		}
+	},
+	UNSUPPORTED {
+		@Override
+		public boolean supported(GLCapabilities caps) {
+			return true;
+		}
+
+		@Override
+		public void drawArraysInstancedBaseInstance(int mode, int first, int count, int instanceCount, int baseInstance) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void drawElementsInstancedBaseVertexBaseInstance(int mode, int count, int type, long indices, int instanceCount, int baseVertex, int baseInstance) {
+			throw new UnsupportedOperationException();
+		}
+	};
+
+	public abstract void drawArraysInstancedBaseInstance(int mode, int first, int count, int instanceCount, int baseInstance);
+
+	public abstract void drawElementsInstancedBaseVertexBaseInstance(int mode, int count, int type, long indices, int instanceCount, int baseVertex, int baseInstance);
+}
@@ -31,12 +31,16 @@ public class GlCompat {
 
 	public final InstancedArrays instancedArrays;
 	public final BufferStorage bufferStorage;
+	public final MultiDrawIndirect multiDrawIndirect;
+	public final BaseInstance baseInstance;
 	public final boolean amd;
 
 	private GlCompat() {
 		GLCapabilities caps = GL.createCapabilities();
 		instancedArrays = getLatest(InstancedArrays.class, caps);
 		bufferStorage = getLatest(BufferStorage.class, caps);
+		multiDrawIndirect = getLatest(MultiDrawIndirect.class, caps);
+		baseInstance = getLatest(BaseInstance.class, caps);
 
 		if (Util.getPlatform() == Util.OS.WINDOWS) {
 			String vendor = GL20C.glGetString(GL20C.GL_VENDOR);
@@ -59,6 +63,14 @@ public class GlCompat {
 		return bufferStorage != BufferStorage.UNSUPPORTED;
 	}
 
+	public boolean multiDrawIndirectSupported() {
+		return multiDrawIndirect != MultiDrawIndirect.UNSUPPORTED;
+	}
+
+	public boolean baseInstanceSupported() {
+		return baseInstance != BaseInstance.UNSUPPORTED;
+	}
+
 	/**
 	 * Get the most compatible version of a specific OpenGL feature by iterating over enum constants in order.
 	 *
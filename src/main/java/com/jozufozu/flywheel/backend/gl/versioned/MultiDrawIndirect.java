@@ -0,0 +1,50 @@
+package com.jozufozu.flywheel.backend.gl.versioned;
+
+import org.lwjgl.opengl.ARBMultiDrawIndirect;
+import org.lwjgl.opengl.GL43;
+import org.lwjgl.opengl.GLCapabilities;
+
+/**
+ * Drawing many models with one call, reading the draw parameters from a {@code GL_DRAW_INDIRECT_BUFFER}.
+ * Every variant but the last also supports a base instance in those parameters.
+ */
+public enum MultiDrawIndirect implements GlVersioned {
+	GL43_MULTI_DRAW_INDIRECT {
+		@Override
+		public boolean supported(GLCapabilities caps) {
+			return caps.OpenGL43;
+		}
+
+		@Override
+		public void multiDrawElementsIndirect(int mode, int type, long offset, int drawCount, int stride) {
+			GL43.glMultiDrawElementsIndirect(mode, type, offset, drawCount, stride);
+		}
+	},
+	ARB_MULTI_DRAW_INDIRECT {
+		@Override
+		public boolean supported(GLCapabilities caps) {
+			return caps.GL_ARB_multi_draw_indirect && (caps.OpenGL42 || caps.GL_ARB_base_instance);
+		}
+
+		@Override
+		public void multiDrawElementsIndirect(int mode, int type, long offset, int drawCount, int stride) {
+			ARBMultiDrawIndirect.glMultiDrawElementsIndirect(mode, type, offset, drawCount, stride);
+		}
+	},
+	UNSUPPORTED {
+		@Override
+		public boolean supported(GLCapabilities caps) {
+			return true;
+		}
+
+		@Override
+		public void multiDrawElementsIndirect(int mode, int type, long offset, int drawCount, int stride) {
+			throw new UnsupportedOperationException();
+		}
+	};
+
+	/**
+	 * @param offset The byte offset of the first command in the bound indirect buffer.
+	 */
+	public abstract void multiDrawElementsIndirect(int mode, int type, long offset, int drawCount, int stride);
+}
@@ -12,8 +12,10 @@ import com.jozufozu.flywheel.core.materials.FlatLit;
 import com.jozufozu.flywheel.light.LightListener;
 import com.jozufozu.flywheel.light.LightProvider;
 import com.jozufozu.flywheel.light.ListenerStatus;
+import com.jozufozu.flywheel.mixin.FrustumAccessor;
 import com.jozufozu.flywheel.util.box.ImmutableBox;
 
+import net.minecraft.client.renderer.culling.Frustum;
 import net.minecraft.core.BlockPos;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.LightLayer;
@@ -24,9 +26,20 @@ import net.minecraft.world.level.LightLayer;
  */
 public abstract class AbstractInstance implements Instance, LightListener {
 
+	/**
+	 * Returned by {@link #getCullingRadius()} for instances that can't be bounded.
+	 */
+	public static final int UNBOUNDED_RADIUS = -1;
+
 	protected final MaterialManager materialManager;
 	public final Level world;
 
+	/**
+	 * Where this instance is in the dynamic and tickable lists of its {@link SectionGrid} section, or -1.
+	 */
+	int dynamicSlot = -1;
+	int tickableSlot = -1;
+
 	public AbstractInstance(MaterialManager materialManager, Level world) {
 		this.materialManager = materialManager;
 		this.world = world;
@@ -77,6 +90,51 @@ public abstract class AbstractInstance implements Instance, LightListener {
 		return false;
 	}
 
+	/**
+	 * Check if any part of this instance could be visible in the given frustum.
+	 *
+	 * <p>
+	 *     {@link DynamicInstance}s that fail this check skip {@link DynamicInstance#beginFrame()} for the frame.
+	 *     By default this tests the instance's {@link #getVolume() volume}, padded by a block in every direction.
+	 *     Override this if your models extend further than that.
+	 * </p>
+	 *
+	 * @param frustum The frustum of the current frame.
+	 * @return {@code false} if this instance is definitely out of view.
+	 */
+	public boolean checkFrustum(Frustum frustum) {
+		ImmutableBox volume = getVolume();
+
+		return ((FrustumAccessor) frustum).flywheel$cubeInFrustum(volume.getMinX() - 1, volume.getMinY() - 1, volume.getMinZ() - 1, volume.getMaxX() + 1, volume.getMaxY() + 1, volume.getMaxZ() + 1);
+	}
+
+	/**
+	 * How far this instance can reach from its {@link #getWorldPosition() world position}, in blocks.
+	 *
+	 * <p>
+	 *     Instances are grouped by section so a whole section can be culled at once, see {@link SectionGrid}.
+	 *     This must cover everything {@link #checkFrustum} tests. By default it's derived from the {@link #getVolume()
+	 *     volume}, including the padding. Return {@link #UNBOUNDED_RADIUS} if the instance should always be checked on
+	 *     its own.
+	 * </p>
+	 */
+	public int getCullingRadius() {
+		ImmutableBox volume = getVolume();
+
+		return radiusAround(getWorldPosition(), volume.getMinX(), volume.getMinY(), volume.getMinZ(), volume.getMaxX(), volume.getMaxY(), volume.getMaxZ()) + 1;
+	}
+
+	/**
+	 * @return The smallest whole number of blocks that the given box reaches in any direction from {@code pos}.
+	 */
+	protected static int radiusAround(BlockPos pos, double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+		double x = Math.max(pos.getX() - minX, maxX - pos.getX());
+		double y = Math.max(pos.getY() - minY, maxY - pos.getY());
+		double z = Math.max(pos.getZ() - minZ, maxZ - pos.getZ());
+
+		return (int) Math.ceil(Math.max(x, Math.max(y, z)));
+	}
+
 	@Override
 	public ListenerStatus status() {
 		return ListenerStatus.OKAY;
@@ -1,13 +1,24 @@
 package com.jozufozu.flywheel.backend.instancing;
 
 import java.util.ArrayList;
-import java.util.BitSet;
+import java.util.Arrays;
 import java.util.function.Supplier;
 
 import com.jozufozu.flywheel.api.InstanceData;
 import com.jozufozu.flywheel.api.Instancer;
 import com.jozufozu.flywheel.core.model.Model;
 
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+/**
+ * Keeps instances packed at the front of a list, like a slot map.
+ *
+ * <p>
+ *     Each instance knows its slot. A removed instance's slot is filled by the last instance, so removing one
+ *     instance touches one slot and marks at most the one instance that moved dirty, no matter how many there are.
+ *     Instances don't keep their order.
+ * </p>
+ */
 public abstract class AbstractInstancer<D extends InstanceData> implements Instancer<D> {
 
 	protected final Supplier<D> factory;
@@ -16,6 +27,15 @@ public abstract class AbstractInstancer<D extends InstanceData> implements Insta
 
 	protected boolean anyToRemove;
 
+	/**
+	 * Slots that were removed from since the last call to {@link #removeDeletedInstances()}.
+	 */
+	private final IntArrayList removedSlots = new IntArrayList();
+	/**
+	 * Set when something was removed without saying what, so every slot has to be checked.
+	 */
+	private boolean checkAllSlots;
+
 	protected AbstractInstancer(Supplier<D> factory, Model modelData) {
 		this.factory = factory;
 		this.modelData = modelData;
@@ -41,12 +61,21 @@ public abstract class AbstractInstancer<D extends InstanceData> implements Insta
 
 		// Changing the owner reference will delete it in the other instancer
 		inOther.getOwner()
-				.notifyRemoval();
+				.notifyRemoval(inOther);
 		_add(inOther);
 	}
 
 	@Override
 	public void notifyRemoval() {
+		checkAllSlots = true;
+		anyToRemove = true;
+	}
+
+	@Override
+	public void notifyRemoval(InstanceData instance) {
+		synchronized (removedSlots) {
+			removedSlots.add(instance.getIndex());
+		}
 		anyToRemove = true;
 	}
 
@@ -55,9 +84,28 @@ public abstract class AbstractInstancer<D extends InstanceData> implements Insta
 	 */
 	public void clear() {
 		data.clear();
+		synchronized (removedSlots) {
+			removedSlots.clear();
+		}
 		anyToRemove = true;
 	}
 
+	/**
+	 * Move every live instance to another instancer for the same model, leaving this one empty.
+	 * Cheaper than stealing them one by one, since nothing has to be looked up on this side.
+	 */
+	public void transferAllTo(AbstractInstancer<D> other) {
+		if (other == this) return;
+
+		for (D element : data) {
+			if (!shouldRemove(element)) {
+				other._add(element);
+			}
+		}
+
+		clear();
+	}
+
 	public int getModelVertexCount() {
 		return modelData.vertexCount();
 	}
@@ -71,50 +119,79 @@ public abstract class AbstractInstancer<D extends InstanceData> implements Insta
 	}
 
 	protected void removeDeletedInstances() {
-		// Figure out which elements are to be removed.
-		final int oldSize = this.data.size();
-		int removeCount = 0;
-		final BitSet removeSet = new BitSet(oldSize);
-		for (int i = 0; i < oldSize; i++) {
-			final D element = this.data.get(i);
-			if (element.isRemoved() || element.getOwner() != this) {
-				removeSet.set(i);
-				removeCount++;
+		if (checkAllSlots) {
+			checkAllSlots = false;
+			synchronized (removedSlots) {
+				removedSlots.clear();
+			}
+
+			// walking backwards, whatever gets swapped in has already been checked
+			for (int i = data.size() - 1; i >= 0; i--) {
+				if (shouldRemove(data.get(i))) {
+					swapRemove(i);
+				}
 			}
+			return;
 		}
 
-		final int newSize = oldSize - removeCount;
+		int[] slots;
+		synchronized (removedSlots) {
+			slots = removedSlots.toIntArray();
+			removedSlots.clear();
+		}
 
-		// shift surviving elements left over the spaces left by removed elements
-		for (int i = 0, j = 0; (i < oldSize) && (j < newSize); i++, j++) {
-			i = removeSet.nextClearBit(i);
+		// Highest slot first: the last instance can only be one we're about to remove if it's in that very slot.
+		Arrays.sort(slots);
+		for (int j = slots.length - 1; j >= 0; j--) {
+			int i = slots[j];
 
-			if (i != j) {
-				D element = data.get(i);
-				data.set(j, element);
-				// Marking the data dirty marks us dirty too.
-				// Perhaps there will be some wasted cycles, but the JVM should be able to
-				// generate code that moves the repeated segment out of the loop.
-				element.markDirty();
+			// slots can be stale or repeated, make sure there's really something to remove
+			if (i >= 0 && i < data.size() && shouldRemove(data.get(i))) {
+				swapRemove(i);
 			}
 		}
+	}
 
-		data.subList(newSize, oldSize)
-				.clear();
+	private boolean shouldRemove(D element) {
+		return element.isRemoved() || element.getOwner() != this;
+	}
 
+	/**
+	 * Fill the given slot with the last instance.
+	 */
+	private void swapRemove(int i) {
+		int last = data.size() - 1;
+		D moved = data.remove(last);
+
+		if (i != last) {
+			data.set(i, moved);
+			moved.setIndex(i);
+			// Marking the data dirty marks us dirty too.
+			markMoved(moved);
+		}
 	}
 
 	private D _add(D instanceData) {
 		instanceData.setOwner(this);
 
-		instanceData.markDirty();
 		synchronized (data) {
+			instanceData.setIndex(data.size());
 			data.add(instanceData);
 		}
+		markMoved(instanceData);
 
 		return instanceData;
 	}
 
+	/**
+	 * Mark an instance that just got a new slot dirty. If it already was, the slot it was dirty in is stale, so
+	 * clear the flag first to make sure we hear about the new one.
+	 */
+	private static void markMoved(InstanceData instanceData) {
+		instanceData.checkDirtyAndClear();
+		instanceData.markDirty();
+	}
+
 	@Override
 	public String toString() {
 		return "Instancer[" + modelData + ']';
@@ -0,0 +1,74 @@
+package com.jozufozu.flywheel.backend.instancing;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Picks the smallest piece of work worth splitting off, based on how long items took to process in recent frames.
+ *
+ * <p>
+ *     Tasks report their item count and run time with {@link #record}. The next call to {@link #getGrainSize}
+ *     folds those samples into a moving average of the cost per item, then sizes grains so that each one runs long
+ *     enough to be worth scheduling. How finely the work is actually split is left to
+ *     {@link TaskEngine#parallelFor}.
+ * </p>
+ */
+public class AdaptivePartitioner {
+
+	/**
+	 * Tasks shorter than this spend a noticeable part of their time being scheduled.
+	 */
+	private static final long MIN_TASK_NANOS = 50_000;
+
+	/**
+	 * How much of the previous average is kept each time a new batch of samples comes in.
+	 */
+	private static final double SMOOTHING = 0.8;
+
+	private final AtomicLong sampledNanos = new AtomicLong();
+	private final AtomicLong sampledItems = new AtomicLong();
+
+	private double nanosPerItem;
+
+	/**
+	 * @param initialNanosPerItem An estimate of the cost per item, used until the first samples arrive.
+	 */
+	public AdaptivePartitioner(double initialNanosPerItem) {
+		this.nanosPerItem = Math.max(initialNanosPerItem, 1);
+	}
+
+	/**
+	 * Record that a task processed {@code items} items in {@code nanos} nanoseconds. Safe to call from any thread.
+	 */
+	public void record(int items, long nanos) {
+		if (items <= 0) return;
+
+		sampledItems.addAndGet(items);
+		sampledNanos.addAndGet(nanos);
+	}
+
+	/**
+	 * Get the smallest number of items a task should process. Call this from the thread submitting the tasks.
+	 *
+	 * @return The grain size, at least 1.
+	 */
+	public int getGrainSize() {
+		update();
+
+		return Math.max((int) Math.ceil(MIN_TASK_NANOS / nanosPerItem), 1);
+	}
+
+	public double getNanosPerItem() {
+		return nanosPerItem;
+	}
+
+	private void update() {
+		long items = sampledItems.getAndSet(0);
+		long nanos = sampledNanos.getAndSet(0);
+
+		if (items == 0) return;
+
+		double sample = Math.max((double) nanos / items, 1);
+
+		nanosPerItem = nanosPerItem * SMOOTHING + sample * (1 - SMOOTHING);
+	}
+}
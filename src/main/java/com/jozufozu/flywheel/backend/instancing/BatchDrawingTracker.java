@@ -1,8 +1,12 @@
 package com.jozufozu.flywheel.backend.instancing;
 
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
+import javax.annotation.Nullable;
+
 import com.jozufozu.flywheel.backend.model.BufferBuilderExtension;
 import com.jozufozu.flywheel.backend.model.DirectVertexConsumer;
 import com.mojang.blaze3d.vertex.BufferBuilder;
@@ -14,10 +18,26 @@ public class BatchDrawingTracker {
 	protected final Set<RenderType> activeTypes = new HashSet<>();
 	private final BufferBuilder scratch;
 
+	/**
+	 * Draw buffers belonging to this tracker alone, or null to use the one every RenderType carries.
+	 */
+	@Nullable
+	private final Map<RenderType, DrawBuffer> ownBuffers;
+
 	public BatchDrawingTracker() {
+		this(false);
+	}
+
+	/**
+	 * @param ownBuffers If true, this tracker gets its own draw buffers, so several trackers can have vertices for
+	 *                   the same RenderType at once.
+	 */
+	public BatchDrawingTracker(boolean ownBuffers) {
 		scratch = new BufferBuilder(8);
 
 		((BufferBuilderExtension) scratch).flywheel$freeBuffer();
+
+		this.ownBuffers = ownBuffers ? new HashMap<>() : null;
 	}
 
 	/**
@@ -28,8 +48,7 @@ public class BatchDrawingTracker {
 	 */
 	public DirectVertexConsumer getDirectConsumer(RenderType renderType, int vertexCount) {
 		activeTypes.add(renderType);
-		return RenderTypeExtension.getDrawBuffer(renderType)
-				.begin(vertexCount);
+		return getDrawBuffer(renderType).begin(vertexCount);
 	}
 
 	/**
@@ -61,14 +80,33 @@ public class BatchDrawingTracker {
 	 */
 	public void clear() {
 		for (RenderType type : activeTypes) {
-			RenderTypeExtension.getDrawBuffer(type)
-					.reset();
+			getDrawBuffer(type).reset();
 		}
 		activeTypes.clear();
 	}
 
+	/**
+	 * Free any draw buffers this tracker owns.
+	 */
+	public void delete() {
+		activeTypes.clear();
+
+		if (ownBuffers != null) {
+			ownBuffers.values().forEach(DrawBuffer::delete);
+			ownBuffers.clear();
+		}
+	}
+
+	private DrawBuffer getDrawBuffer(RenderType renderType) {
+		if (ownBuffers != null) {
+			return ownBuffers.computeIfAbsent(renderType, DrawBuffer::new);
+		}
+
+		return RenderTypeExtension.getDrawBuffer(renderType);
+	}
+
 	private void _draw(RenderType renderType) {
-		DrawBuffer drawBuffer = RenderTypeExtension.getDrawBuffer(renderType);
+		DrawBuffer drawBuffer = getDrawBuffer(renderType);
 
 		BufferBuilderExtension scratch = (BufferBuilderExtension) this.scratch;
 		if (drawBuffer.hasVertices()) {
@@ -0,0 +1,161 @@
+package com.jozufozu.flywheel.backend.instancing;
+
+import java.util.Arrays;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+
+/**
+ * The slots of an instancer that have to be uploaded again.
+ *
+ * <p>
+ *     Slots and ranges of slots can be added from any thread. Before an upload they're sorted and coalesced, bridging
+ *     small gaps: writing a few clean instances is cheaper than starting another range.
+ * </p>
+ */
+public class DirtyRanges {
+
+	/**
+	 * Past this many ranges, it's cheaper to just upload everything.
+	 */
+	private static final int MAX_RANGES = 1 << 16;
+
+	/**
+	 * Start and end of each range, packed high and low. Ends are exclusive.
+	 */
+	private final LongArrayList entries = new LongArrayList();
+	private boolean all;
+
+	/**
+	 * Start and end pairs, reused between uploads.
+	 */
+	private final IntArrayList ranges = new IntArrayList();
+
+	public void add(int slot) {
+		addRange(slot, slot + 1);
+	}
+
+	public void addRange(int start, int end) {
+		if (start < 0 || end <= start) return;
+
+		synchronized (entries) {
+			if (all) return;
+
+			if (entries.size() >= MAX_RANGES) {
+				markAll();
+				return;
+			}
+
+			entries.add(((long) start << 32) | end);
+		}
+	}
+
+	/**
+	 * Add everything in another set.
+	 */
+	public void addAll(DirtyRanges other) {
+		if (other == this) return;
+
+		if (other.all) {
+			markAll();
+			return;
+		}
+
+		long[] theirs;
+		synchronized (other.entries) {
+			theirs = other.entries.toLongArray();
+		}
+
+		synchronized (entries) {
+			if (all) return;
+
+			if (entries.size() + theirs.length > MAX_RANGES) {
+				markAll();
+				return;
+			}
+
+			entries.addElements(entries.size(), theirs);
+		}
+	}
+
+	/**
+	 * For when something changed without saying what.
+	 */
+	public void markAll() {
+		synchronized (entries) {
+			all = true;
+			entries.clear();
+		}
+	}
+
+	public boolean isAll() {
+		return all;
+	}
+
+	public boolean isEmpty() {
+		return !all && entries.isEmpty();
+	}
+
+	/**
+	 * Sort and merge the ranges added since the last {@link #clear()}. If everything was marked, that's one range
+	 * over every slot.
+	 *
+	 * @param size The number of slots that exist. Anything past the end is dropped.
+	 * @param maxGap The most clean slots allowed between two dirty ranges that get merged.
+	 * @return A list of {@code start, end} pairs, end exclusive, in ascending order. Only valid until the next call.
+	 */
+	public IntArrayList coalesce(int size, int maxGap) {
+		ranges.clear();
+
+		if (all) {
+			if (size > 0) {
+				ranges.add(0);
+				ranges.add(size);
+			}
+			return ranges;
+		}
+
+		long[] sorted;
+		synchronized (entries) {
+			sorted = entries.toLongArray();
+		}
+		// sorts by start, the high half
+		Arrays.sort(sorted);
+
+		int start = -1;
+		int end = -1;
+		for (long entry : sorted) {
+			int entryStart = (int) (entry >>> 32);
+			int entryEnd = Math.min((int) entry, size);
+
+			if (entryStart >= size) break;
+
+			if (start >= 0 && entryStart <= end + maxGap) {
+				end = Math.max(end, entryEnd);
+				continue;
+			}
+
+			if (start >= 0) {
+				ranges.add(start);
+				ranges.add(end);
+			}
+
+			start = entryStart;
+			end = entryEnd;
+		}
+
+		if (start >= 0) {
+			ranges.add(start);
+			ranges.add(end);
+		}
+
+		return ranges;
+	}
+
+	public void clear() {
+		synchronized (entries) {
+			all = false;
+			entries.clear();
+		}
+	}
+}
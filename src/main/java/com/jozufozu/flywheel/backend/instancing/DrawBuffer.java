@@ -2,6 +2,8 @@ package com.jozufozu.flywheel.backend.instancing;
 
 import java.nio.ByteBuffer;
 
+import org.lwjgl.system.MemoryUtil;
+
 import com.jozufozu.flywheel.backend.model.BufferBuilderExtension;
 import com.jozufozu.flywheel.backend.model.DirectVertexConsumer;
 import com.mojang.blaze3d.platform.MemoryTracker;
@@ -74,4 +76,15 @@ public class DrawBuffer {
 	public void reset() {
 		this.expectedVertices = 0;
 	}
+
+	/**
+	 * Free the backing buffer. The draw buffer can still be used afterwards, it'll allocate a new one.
+	 */
+	public void delete() {
+		if (backingBuffer != null) {
+			MemoryUtil.memFree(backingBuffer);
+			backingBuffer = null;
+		}
+		expectedVertices = 0;
+	}
 }
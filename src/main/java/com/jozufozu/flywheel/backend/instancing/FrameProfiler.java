@@ -0,0 +1,190 @@
+package com.jozufozu.flywheel.backend.instancing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nullable;
+
+import com.mojang.blaze3d.systems.RenderSystem;
+
+/**
+ * A lightweight hierarchical timer for the stages of a frame.
+ *
+ * <p>
+ *     Stages are timed with matching calls to {@link #push} and {@link #pop} on the render thread. Calls from
+ *     other threads are ignored. Work that happens on worker threads can be attributed to a stage by grabbing a
+ *     {@link #child} node on the render thread and {@link Node#addAsync adding} to it from the workers.
+ * </p>
+ * <p>
+ *     Once per frame, {@link #endFrame()} moves the time accumulated by each stage into a rolling history of the
+ *     last {@link #HISTORY} frames that stage ran in, which is used for averages and percentiles.
+ * </p>
+ */
+public final class FrameProfiler {
+
+	public static final int HISTORY = 240;
+
+	private static final Node ROOT = new Node("frame", null);
+	/**
+	 * Handed out to callers off the render thread so they don't have to check.
+	 */
+	private static final Node DETACHED = new Node("detached", null);
+
+	private static Node current = ROOT;
+
+	private FrameProfiler() {
+	}
+
+	/**
+	 * Start timing a stage nested in the current one.
+	 */
+	public static void push(String name) {
+		if (!RenderSystem.isOnRenderThread()) return;
+
+		Node node = current.child(name);
+		node.start = System.nanoTime();
+		current = node;
+	}
+
+	/**
+	 * Stop timing the current stage.
+	 */
+	public static void pop() {
+		if (!RenderSystem.isOnRenderThread() || current == ROOT) return;
+
+		current.frameNanos += System.nanoTime() - current.start;
+		current.frameCalls++;
+		current = current.parent;
+	}
+
+	/**
+	 * Get a node nested in the current stage without starting a timer. Useful for {@link Node#addAsync}.
+	 */
+	public static Node child(String name) {
+		if (!RenderSystem.isOnRenderThread()) return DETACHED;
+
+		return current.child(name);
+	}
+
+	/**
+	 * Finish the current frame, moving all accumulated time into history.
+	 */
+	public static void endFrame() {
+		if (!RenderSystem.isOnRenderThread()) return;
+
+		// something didn't pop, don't let it leak into the next frame
+		current = ROOT;
+
+		for (Node child : ROOT.children) {
+			child.endFrame();
+		}
+	}
+
+	public static void reset() {
+		if (!RenderSystem.isOnRenderThread()) return;
+
+		current = ROOT;
+		ROOT.children.clear();
+	}
+
+	public static Node getRoot() {
+		return ROOT;
+	}
+
+	public static class Node {
+		public final String name;
+		private final Node parent;
+		private final List<Node> children = new ArrayList<>();
+
+		private long start;
+		private long frameNanos;
+		private int frameCalls;
+		private final AtomicLong asyncNanos = new AtomicLong();
+
+		private final long[] history = new long[HISTORY];
+		private int historySize;
+		private int historyIndex;
+
+		private Node(String name, Node parent) {
+			this.name = name;
+			this.parent = parent;
+		}
+
+		private Node child(String name) {
+			for (int i = 0; i < children.size(); i++) {
+				Node child = children.get(i);
+
+				if (child.name.equals(name)) {
+					return child;
+				}
+			}
+
+			Node child = new Node(name, this);
+			children.add(child);
+			return child;
+		}
+
+		/**
+		 * Add time spent on another thread to this node. Safe to call from any thread.
+		 */
+		public void addAsync(long nanos) {
+			asyncNanos.addAndGet(nanos);
+		}
+
+		private void endFrame() {
+			long nanos = frameNanos + asyncNanos.getAndSet(0);
+
+			if (frameCalls > 0 || nanos > 0) {
+				history[historyIndex] = nanos;
+				historyIndex = (historyIndex + 1) % HISTORY;
+				historySize = Math.min(historySize + 1, HISTORY);
+			}
+
+			frameNanos = 0;
+			frameCalls = 0;
+
+			for (Node child : children) {
+				child.endFrame();
+			}
+		}
+
+		public List<Node> getChildren() {
+			return children;
+		}
+
+		/**
+		 * @return A snapshot of this node's history, or {@code null} if it hasn't run yet.
+		 */
+		@Nullable
+		public Stats getStats() {
+			if (historySize == 0) return null;
+
+			long[] sorted = Arrays.copyOf(history, historySize);
+			Arrays.sort(sorted);
+
+			long sum = 0;
+			for (long sample : sorted) {
+				sum += sample;
+			}
+
+			return new Stats(historySize, (double) sum / historySize, percentile(sorted, 0.5), percentile(sorted, 0.95), percentile(sorted, 0.99));
+		}
+
+		private static long percentile(long[] sorted, double p) {
+			int index = (int) Math.ceil(p * sorted.length) - 1;
+			return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+		}
+	}
+
+	/**
+	 * Times in nanoseconds over the last {@code samples} frames a stage ran in.
+	 */
+	public record Stats(int samples, double average, long p50, long p95, long p99) {
+
+		public String format() {
+			return String.format("%.3fms avg, p50 %.3f, p95 %.3f, p99 %.3f", average / 1e6, p50 / 1e6, p95 / 1e6, p99 / 1e6);
+		}
+	}
+}
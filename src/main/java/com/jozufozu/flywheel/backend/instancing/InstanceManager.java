@@ -3,7 +3,6 @@ package com.jozufozu.flywheel.backend.instancing;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -22,7 +21,9 @@ import com.jozufozu.flywheel.light.LightUpdater;
 import com.mojang.math.Vector3f;
 
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import net.minecraft.client.Camera;
+import net.minecraft.client.renderer.culling.Frustum;
 import net.minecraft.core.BlockPos;
 
 public abstract class InstanceManager<T> implements InstancingEngine.OriginShiftListener {
@@ -35,10 +36,33 @@ public abstract class InstanceManager<T> implements InstancingEngine.OriginShift
 	protected final Map<T, AbstractInstance> instances;
 	protected final Object2ObjectOpenHashMap<T, TickableInstance> tickableInstances;
 	protected final Object2ObjectOpenHashMap<T, DynamicInstance> dynamicInstances;
+	protected final SectionGrid grid = new SectionGrid();
 
 	protected DistanceUpdateLimiter frame;
 	protected DistanceUpdateLimiter tick;
 
+	// Work lists are kept between frames so steady-state updates don't allocate.
+	// Grouped instances come first in each list, followed by the ones that need individual rate limiting.
+	private final ObjectArrayList<DynamicInstance> frameList = new ObjectArrayList<>();
+	private final ObjectArrayList<TickableInstance> tickList = new ObjectArrayList<>();
+	private final IntRangeConsumer frameTask = this::frameRange;
+	private final IntRangeConsumer tickTask = this::tickRange;
+	private int frameGrouped;
+	private int tickGrouped;
+
+	// Grain sizes follow the measured cost of the instances this manager holds.
+	private final AdaptivePartitioner framePartitioner = new AdaptivePartitioner(1000);
+	private final AdaptivePartitioner tickPartitioner = new AdaptivePartitioner(1000);
+
+	// Per-call state read by the tasks. Submitting the range publishes it to the workers.
+	@Nullable
+	private Frustum frameFrustum;
+	private float lookX, lookY, lookZ;
+	private int frameCX, frameCY, frameCZ;
+	private int tickCX, tickCY, tickCZ;
+	private FrameProfiler.Node frameWorkers;
+	private FrameProfiler.Node tickWorkers;
+
 	public InstanceManager(MaterialManager materialManager) {
 		this.materialManager = materialManager;
 		this.queuedUpdates = new HashSet<>(64);
@@ -98,32 +122,45 @@ public abstract class InstanceManager<T> implements InstancingEngine.OriginShift
 	 *     <br>
 	 *     Queued updates are processed.
 	 * </p>
+	 * <p>
+	 *     The submitted tasks read from buffers owned by this manager, so the task engine must have been
+	 *     {@link TaskEngine#syncPoint() synced} since the last call.
+	 * </p>
 	 */
 	public void tick(TaskEngine taskEngine, double cameraX, double cameraY, double cameraZ) {
 		tick.tick();
 		processQueuedUpdates();
+		grid.updateMovers();
 
 		// integer camera pos as a micro-optimization
-		int cX = (int) cameraX;
-		int cY = (int) cameraY;
-		int cZ = (int) cameraZ;
-
-		ArrayList<TickableInstance> instances = new ArrayList<>(tickableInstances.values());
-		int incr = 500;
-		int size = instances.size();
-		int start = 0;
-		while (start < size) {
-			int end = Math.min(start + incr, size);
-
-			List<TickableInstance> sub = instances.subList(start, end);
-			taskEngine.submit(() -> {
-				for (TickableInstance instance : sub) {
-					tickInstance(cX, cY, cZ, instance);
+		tickCX = (int) cameraX;
+		tickCY = (int) cameraY;
+		tickCZ = (int) cameraZ;
+
+		tickList.clear();
+		tickWorkers = FrameProfiler.child("workers");
+
+		// whole sections share one rate limiting decision
+		for (int s = 0; s < grid.getSectionCount(); s++) {
+			SectionGrid.Section section = grid.getSection(s);
+			int count = section.getTickableCount();
+			if (count == 0) continue;
+
+			if (tick.shouldUpdate(section.getCenterX() - tickCX, section.getCenterY() - tickCY, section.getCenterZ() - tickCZ)) {
+				for (int i = 0; i < count; i++) {
+					tickList.add(section.getTickable(i));
 				}
-			});
+			}
+		}
+
+		tickGrouped = tickList.size();
 
-			start += incr;
+		SectionGrid.Section ungrouped = grid.getUngrouped();
+		for (int i = 0; i < ungrouped.getTickableCount(); i++) {
+			tickList.add(ungrouped.getTickable(i));
 		}
+
+		taskEngine.parallelFor(0, tickList.size(), tickPartitioner.getGrainSize(), tickTask);
 	}
 
 	protected void tickInstance(int cX, int cY, int cZ, TickableInstance instance) {
@@ -142,38 +179,110 @@ public abstract class InstanceManager<T> implements InstancingEngine.OriginShift
 	}
 
 	public void beginFrame(TaskEngine taskEngine, Camera info) {
+		beginFrame(taskEngine, info, null);
+	}
+
+	/**
+	 * Call {@link DynamicInstance#beginFrame()} on all dynamic instances that need it this frame.
+	 *
+	 * <p>
+	 *     Like {@link #tick}, the task engine must have been synced since the last call.
+	 * </p>
+	 *
+	 * @param frustum The view frustum. If present, instances that are out of view won't be updated.
+	 *                Pass {@code null} when the instances don't live in world space.
+	 */
+	public void beginFrame(TaskEngine taskEngine, Camera info, @Nullable Frustum frustum) {
 		frame.tick();
 		processQueuedAdditions();
 
 		Vector3f look = info.getLookVector();
-		float lookX = look.x();
-		float lookY = look.y();
-		float lookZ = look.z();
+		frameFrustum = frustum;
+		lookX = look.x();
+		lookY = look.y();
+		lookZ = look.z();
 
 		// integer camera pos
-		int cX = (int) info.getPosition().x;
-		int cY = (int) info.getPosition().y;
-		int cZ = (int) info.getPosition().z;
-
-		ArrayList<DynamicInstance> instances = new ArrayList<>(dynamicInstances.values());
-		int incr = 500;
-		int size = instances.size();
-		int start = 0;
-		while (start < size) {
-			int end = Math.min(start + incr, size);
-
-			List<DynamicInstance> sub = instances.subList(start, end);
-			taskEngine.submit(() -> {
-				for (DynamicInstance dyn : sub) {
-					updateInstance(dyn, lookX, lookY, lookZ, cX, cY, cZ);
-				}
-			});
+		frameCX = (int) info.getPosition().x;
+		frameCY = (int) info.getPosition().y;
+		frameCZ = (int) info.getPosition().z;
+
+		frameList.clear();
+		frameWorkers = FrameProfiler.child("workers");
+
+		// reject whole sections first, then check what's left one by one on the workers
+		for (int s = 0; s < grid.getSectionCount(); s++) {
+			SectionGrid.Section section = grid.getSection(s);
+			int count = section.getDynamicCount();
+			if (count == 0) continue;
+
+			if (!frame.shouldUpdate(section.getCenterX() - frameCX, section.getCenterY() - frameCY, section.getCenterZ() - frameCZ)) continue;
+
+			if (!section.checkFrustum(frustum)) continue;
+
+			for (int i = 0; i < count; i++) {
+				frameList.add(section.getDynamic(i));
+			}
+		}
+
+		frameGrouped = frameList.size();
+
+		SectionGrid.Section ungrouped = grid.getUngrouped();
+		for (int i = 0; i < ungrouped.getDynamicCount(); i++) {
+			frameList.add(ungrouped.getDynamic(i));
+		}
+
+		taskEngine.parallelFor(0, frameList.size(), framePartitioner.getGrainSize(), frameTask);
+	}
+
+	private void frameRange(int start, int end) {
+		long startTime = System.nanoTime();
+
+		runFrame(start, end);
 
-			start += incr;
+		long elapsed = System.nanoTime() - startTime;
+		framePartitioner.record(end - start, elapsed);
+		frameWorkers.addAsync(elapsed);
+	}
+
+	private void tickRange(int start, int end) {
+		long startTime = System.nanoTime();
+
+		runTick(start, end);
+
+		long elapsed = System.nanoTime() - startTime;
+		tickPartitioner.record(end - start, elapsed);
+		tickWorkers.addAsync(elapsed);
+	}
+
+	private void runFrame(int start, int end) {
+		Frustum frustum = frameFrustum;
+
+		for (int i = start; i < end; i++) {
+			DynamicInstance dyn = frameList.get(i);
+
+			if (i < frameGrouped) {
+				// the section already passed the rate limiter
+				if (isVisible(dyn, frustum, lookX, lookY, lookZ, frameCX, frameCY, frameCZ)) dyn.beginFrame();
+			} else {
+				updateInstance(dyn, frustum, lookX, lookY, lookZ, frameCX, frameCY, frameCZ);
+			}
 		}
 	}
 
-	protected void updateInstance(DynamicInstance dyn, float lookX, float lookY, float lookZ, int cX, int cY, int cZ) {
+	private void runTick(int start, int end) {
+		for (int i = start; i < end; i++) {
+			TickableInstance instance = tickList.get(i);
+
+			if (i < tickGrouped) {
+				instance.tick();
+			} else {
+				tickInstance(tickCX, tickCY, tickCZ, instance);
+			}
+		}
+	}
+
+	protected void updateInstance(DynamicInstance dyn, @Nullable Frustum frustum, float lookX, float lookY, float lookZ, int cX, int cY, int cZ) {
 		if (!dyn.decreaseFramerateWithDistance()) {
 			dyn.beginFrame();
 			return;
@@ -184,15 +293,25 @@ public abstract class InstanceManager<T> implements InstancingEngine.OriginShift
 		int dY = worldPos.getY() - cY;
 		int dZ = worldPos.getZ() - cZ;
 
+		if (frame.shouldUpdate(dX, dY, dZ) && isVisible(dyn, frustum, lookX, lookY, lookZ, cX, cY, cZ)) {
+			dyn.beginFrame();
+		}
+	}
+
+	protected boolean isVisible(DynamicInstance dyn, @Nullable Frustum frustum, float lookX, float lookY, float lookZ, int cX, int cY, int cZ) {
+		if (frustum != null) {
+			return !(dyn instanceof AbstractInstance instance) || instance.checkFrustum(frustum);
+		}
+
+		BlockPos worldPos = dyn.getWorldPosition();
+		int dX = worldPos.getX() - cX;
+		int dY = worldPos.getY() - cY;
+		int dZ = worldPos.getZ() - cZ;
+
 		// is it more than 2 blocks behind the camera?
 		int dist = 2;
 		float dot = (dX + lookX * dist) * lookX + (dY + lookY * dist) * lookY + (dZ + lookZ * dist) * lookZ;
-		if (dot < 0) {
-			return;
-		}
-
-		if (frame.shouldUpdate(dX, dY, dZ))
-			dyn.beginFrame();
+		return dot >= 0;
 	}
 
 	public void add(T obj) {
@@ -264,6 +383,7 @@ public abstract class InstanceManager<T> implements InstancingEngine.OriginShift
 		instances.clear();
 		dynamicInstances.clear();
 		tickableInstances.clear();
+		grid.clear();
 	}
 
 	@Nullable
@@ -291,6 +411,10 @@ public abstract class InstanceManager<T> implements InstancingEngine.OriginShift
 	}
 
 	protected void processQueuedUpdates() {
+		if (queuedUpdates.isEmpty()) {
+			return;
+		}
+
 		ArrayList<T> queued;
 
 		synchronized (queuedUpdates) {
@@ -318,6 +442,7 @@ public abstract class InstanceManager<T> implements InstancingEngine.OriginShift
 		instances.remove(obj);
 		dynamicInstances.remove(obj);
 		tickableInstances.remove(obj);
+		grid.remove(instance);
 		LightUpdater.get(instance.world)
 				.removeListener(instance);
 	}
@@ -342,6 +467,8 @@ public abstract class InstanceManager<T> implements InstancingEngine.OriginShift
 				dynamicInstances.put(obj, r);
 				r.beginFrame();
 			}
+
+			grid.add(renderer);
 		}
 
 		return renderer;
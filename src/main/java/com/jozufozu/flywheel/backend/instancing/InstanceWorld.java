@@ -6,7 +6,10 @@ import com.jozufozu.flywheel.backend.Backend;
 import com.jozufozu.flywheel.backend.instancing.batching.BatchingEngine;
 import com.jozufozu.flywheel.backend.instancing.blockentity.BlockEntityInstanceManager;
 import com.jozufozu.flywheel.backend.instancing.entity.EntityInstanceManager;
+import com.jozufozu.flywheel.backend.instancing.headless.HeadlessEngine;
+import com.jozufozu.flywheel.backend.instancing.hybrid.HybridEngine;
 import com.jozufozu.flywheel.backend.instancing.instancing.InstancingEngine;
+import com.jozufozu.flywheel.config.FlwConfig;
 import com.jozufozu.flywheel.config.FlwEngine;
 import com.jozufozu.flywheel.core.Contexts;
 import com.jozufozu.flywheel.core.shader.WorldProgram;
@@ -34,6 +37,11 @@ public class InstanceWorld {
 
 	protected final ParallelTaskEngine taskEngine;
 
+	/**
+	 * Whether ticks or updates have been submitted since the last sync point.
+	 */
+	private boolean updatesPending;
+
 	public InstanceWorld(LevelAccessor levelAccessor) {
 		Level world = (Level) levelAccessor;
 
@@ -54,8 +62,23 @@ public class InstanceWorld {
 			manager.addListener(blockEntityInstanceManager);
 			this.engine = manager;
 		}
+		case HYBRID -> {
+			HybridEngine<WorldProgram> manager = new HybridEngine<>(Contexts.WORLD);
+
+			entityInstanceManager = new EntityInstanceManager(manager);
+			blockEntityInstanceManager = new BlockEntityInstanceManager(manager);
+
+			manager.addListener(entityInstanceManager);
+			manager.addListener(blockEntityInstanceManager);
+			this.engine = manager;
+		}
 		case BATCHING -> {
-			this.engine = new BatchingEngine();
+			this.engine = new BatchingEngine(FlwConfig.get().doubleBufferBatching());
+			entityInstanceManager = new EntityInstanceManager(this.engine);
+			blockEntityInstanceManager = new BlockEntityInstanceManager(this.engine);
+		}
+		case HEADLESS -> {
+			this.engine = new HeadlessEngine();
 			entityInstanceManager = new EntityInstanceManager(this.engine);
 			blockEntityInstanceManager = new BlockEntityInstanceManager(this.engine);
 		}
@@ -75,6 +98,8 @@ public class InstanceWorld {
 	 * Free all acquired resources and invalidate this instance world.
 	 */
 	public void delete() {
+		// stopping cancels whatever is still queued, let it finish so nothing waits on it forever
+		taskEngine.syncPoint();
 		taskEngine.stopWorkers();
 		engine.delete();
 		entityInstanceManager.detachLightListeners();
@@ -86,16 +111,27 @@ public class InstanceWorld {
 	 * <p>
 	 *     Check and shift the origin coordinate.
 	 *     <br>
-	 *     Call {@link DynamicInstance#beginFrame()} on all instances in this world.
+	 *     Call {@link DynamicInstance#beginFrame()} on all visible instances in this world.
 	 * </p>
 	 */
 	public void beginFrame(BeginFrameEvent event) {
+		FrameProfiler.push("beginFrame");
+		// wait first, the engine may move instances between instancers
+		syncPoint();
+
 		engine.beginFrame(event.getCamera());
 
-		taskEngine.syncPoint();
+		FrameProfiler.push("blockEntities");
+		blockEntityInstanceManager.beginFrame(taskEngine, event.getCamera(), event.getFrustum());
+		FrameProfiler.pop();
+
+		FrameProfiler.push("entities");
+		entityInstanceManager.beginFrame(taskEngine, event.getCamera(), event.getFrustum());
+		FrameProfiler.pop();
+
+		updatesPending = true;
 
-		blockEntityInstanceManager.beginFrame(taskEngine, event.getCamera());
-		entityInstanceManager.beginFrame(taskEngine, event.getCamera());
+		FrameProfiler.pop();
 	}
 
 	/**
@@ -110,19 +146,45 @@ public class InstanceWorld {
 
 		if (renderViewEntity == null) return;
 
+		FrameProfiler.push("tick");
+
+		// the managers reuse their work lists, make sure the last batch is done with them
+		syncPoint();
+
+		FrameProfiler.push("blockEntities");
 		blockEntityInstanceManager.tick(taskEngine, renderViewEntity.getX(), renderViewEntity.getY(), renderViewEntity.getZ());
+		FrameProfiler.pop();
+
+		FrameProfiler.push("entities");
 		entityInstanceManager.tick(taskEngine, renderViewEntity.getX(), renderViewEntity.getY(), renderViewEntity.getZ());
+		FrameProfiler.pop();
+
+		updatesPending = true;
+
+		FrameProfiler.pop();
 	}
 
 	/**
 	 * Draw the given layer.
 	 */
 	public void renderLayer(RenderLayerEvent event) {
-		taskEngine.syncPoint();
+		FrameProfiler.push("renderLayer");
+		// only the updates from beginFrame need to be waited for, an engine may still be busy with earlier layers
+		if (updatesPending) {
+			syncPoint();
+			updatesPending = false;
+		}
 		event.stack.pushPose();
 		event.stack.translate(-event.camX, -event.camY, -event.camZ);
 		engine.render(taskEngine, event);
 		event.stack.popPose();
+		FrameProfiler.pop();
+	}
+
+	private void syncPoint() {
+		FrameProfiler.push("syncPoint");
+		taskEngine.syncPoint();
+		FrameProfiler.pop();
 	}
 
 	/**
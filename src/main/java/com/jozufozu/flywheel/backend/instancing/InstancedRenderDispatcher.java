@@ -88,6 +88,8 @@ public class InstancedRenderDispatcher {
 
 	@SubscribeEvent
 	public static void onBeginFrame(BeginFrameEvent event) {
+		FrameProfiler.endFrame();
+
 		if (Backend.isGameActive() && Backend.isOn()) {
 			instanceWorlds.get(event.getWorld())
 					.beginFrame(event);
@@ -127,8 +129,30 @@ public class InstancedRenderDispatcher {
 			debug.add("Update limiting: " + FlwCommands.boolToText(FlwConfig.get().limitUpdates()).getString());
 			debug.add("B: " + instanceWorld.blockEntityInstanceManager.getObjectCount() + ", E: " + instanceWorld.entityInstanceManager.getObjectCount());
 			instanceWorld.engine.addDebugInfo(debug);
+			addProfilerInfo(debug);
 		} else {
 			debug.add("Disabled");
 		}
 	}
+
+	/**
+	 * Add the top two levels of the frame profiler to the debug screen.
+	 */
+	private static void addProfilerInfo(List<String> debug) {
+		for (FrameProfiler.Node stage : FrameProfiler.getRoot().getChildren()) {
+			addProfilerLine(debug, stage, "");
+
+			for (FrameProfiler.Node child : stage.getChildren()) {
+				addProfilerLine(debug, child, "  ");
+			}
+		}
+	}
+
+	private static void addProfilerLine(List<String> debug, FrameProfiler.Node node, String indent) {
+		FrameProfiler.Stats stats = node.getStats();
+
+		if (stats != null) {
+			debug.add(indent + node.name + ": " + stats.format());
+		}
+	}
 }
@@ -0,0 +1,16 @@
+package com.jozufozu.flywheel.backend.instancing;
+
+/**
+ * Processes a contiguous range of indices.
+ *
+ * @see TaskEngine#parallelFor
+ */
+@FunctionalInterface
+public interface IntRangeConsumer {
+
+	/**
+	 * @param from The first index, inclusive.
+	 * @param to The last index, exclusive.
+	 */
+	void accept(int from, int to);
+}
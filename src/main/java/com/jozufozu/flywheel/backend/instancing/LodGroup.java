@@ -0,0 +1,241 @@
+package com.jozufozu.flywheel.backend.instancing;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.jozufozu.flywheel.api.InstanceData;
+import com.jozufozu.flywheel.api.Instancer;
+import com.jozufozu.flywheel.api.LodInstancer;
+import com.jozufozu.flywheel.api.LodLevel;
+import com.jozufozu.flywheel.api.Material;
+import com.jozufozu.flywheel.util.Pair;
+
+/**
+ * A {@link LodInstancer} made of one instancer per level from the same material.
+ *
+ * <p>
+ *     The material calls {@link #update} once per frame, which moves every copy that crossed a switch distance to
+ *     the instancer for its new level. Moving in is delayed by {@link #HYSTERESIS} so copies sitting right at a switch
+ *     distance don't flip back and forth.
+ * </p>
+ *
+ * <p>
+ *     Each sweep remembers how close the nearest copy came to changing level. Until a copy is created or moved, or the
+ *     camera goes further than that, no level can change and the sweep is skipped. Copies deleted in the meantime are
+ *     forgotten by the next sweep that does run.
+ * </p>
+ *
+ * <p>
+ *     {@link #setPosition} is called for every moving copy every frame, often from many threads at once, so it only
+ *     looks up the copy's entry and writes to it. Creating copies and the per-frame sweep are serialized with each
+ *     other.
+ * </p>
+ */
+public class LodGroup<D extends InstanceData> implements LodInstancer<D> {
+
+	/**
+	 * How far inside a switch distance, as a fraction of it, a copy has to come before it gets the nearer level back.
+	 */
+	public static final float HYSTERESIS = 0.1f;
+
+	private final Instancer<D>[] instancers;
+	private final float[] switchDistance;
+	private final float[] switchDistanceSqr;
+	private final float[] returnDistance;
+	private final float[] returnDistanceSqr;
+
+	/**
+	 * Instance data doesn't override equals, so this is keyed by identity.
+	 */
+	private final ConcurrentHashMap<D, Entry> entries = new ConcurrentHashMap<>();
+	/**
+	 * Held while creating copies and while sweeping, never while moving one.
+	 */
+	private final Object lock = new Object();
+
+	private double camX = Double.NaN;
+	private double camY = Double.NaN;
+	private double camZ = Double.NaN;
+
+	/**
+	 * Where the camera was for the last sweep.
+	 */
+	private double sweptX = Double.NaN;
+	private double sweptY = Double.NaN;
+	private double sweptZ = Double.NaN;
+	/**
+	 * How far the camera can get from where it was for the last sweep before some copy could change level.
+	 */
+	private double slack;
+	/**
+	 * Set when a copy is created or moved, so the next sweep can't be skipped.
+	 */
+	private volatile boolean changed;
+
+	@SuppressWarnings("unchecked")
+	public LodGroup(Material<D> material, Object key, LodLevel... levels) {
+		if (levels.length == 0) {
+			throw new IllegalArgumentException("A LodInstancer needs at least one level");
+		}
+
+		instancers = new Instancer[levels.length];
+		switchDistance = new float[levels.length];
+		switchDistanceSqr = new float[levels.length];
+		returnDistance = new float[levels.length];
+		returnDistanceSqr = new float[levels.length];
+
+		for (int i = 0; i < levels.length; i++) {
+			LodLevel level = levels[i];
+			instancers[i] = material.model(Pair.of(key, i), level.model());
+
+			float distance = level.maxDistance();
+			float back = distance * (1 - HYSTERESIS);
+			switchDistance[i] = distance;
+			switchDistanceSqr[i] = distance * distance;
+			returnDistance[i] = back;
+			returnDistanceSqr[i] = back * back;
+		}
+	}
+
+	@Override
+	public D createInstance(double x, double y, double z) {
+		Entry entry = new Entry(x, y, z);
+
+		synchronized (lock) {
+			entry.level = pickLevel(entry, 0);
+			D instance = instancers[entry.level].createInstance();
+			entries.put(instance, entry);
+			changed = true;
+			return instance;
+		}
+	}
+
+	@Override
+	public void setPosition(D instance, double x, double y, double z) {
+		Entry entry = entries.get(instance);
+
+		if (entry != null) {
+			entry.x = x;
+			entry.y = y;
+			entry.z = z;
+			changed = true;
+		}
+	}
+
+	/**
+	 * Move every copy to the instancer for its distance from the camera, and forget any that were deleted.
+	 */
+	public void update(double camX, double camY, double camZ) {
+		synchronized (lock) {
+			this.camX = camX;
+			this.camY = camY;
+			this.camZ = camZ;
+
+			if (!changed && !Double.isNaN(sweptX)) {
+				double dx = camX - sweptX;
+				double dy = camY - sweptY;
+				double dz = camZ - sweptZ;
+
+				if (dx * dx + dy * dy + dz * dz < slack * slack) return;
+			}
+
+			// cleared first, so a copy moved during the sweep gets looked at again next frame
+			changed = false;
+			sweptX = camX;
+			sweptY = camY;
+			sweptZ = camZ;
+			slack = Double.POSITIVE_INFINITY;
+
+			Iterator<Map.Entry<D, Entry>> it = entries.entrySet().iterator();
+
+			while (it.hasNext()) {
+				Map.Entry<D, Entry> next = it.next();
+				D instance = next.getKey();
+				Entry entry = next.getValue();
+
+				// deleted, or taken over by some other instancer
+				if (instance.isRemoved() || !instancers[entry.level].owns(instance)) {
+					it.remove();
+					continue;
+				}
+
+				int level = pickLevel(entry, entry.level);
+
+				if (level != entry.level) {
+					instancers[level].stealInstance(instance);
+					entry.level = level;
+				}
+
+				slack = Math.min(slack, distanceToChange(entry));
+			}
+		}
+	}
+
+	/**
+	 * Forget all copies. For when the instancers have been cleared out from under us.
+	 */
+	public void clear() {
+		synchronized (lock) {
+			entries.clear();
+		}
+	}
+
+	private int pickLevel(Entry entry, int current) {
+		// before the first frame, start everything at the most detailed level
+		if (Double.isNaN(camX)) return 0;
+
+		double dx = entry.x - camX;
+		double dy = entry.y - camY;
+		double dz = entry.z - camZ;
+		double distanceSqr = dx * dx + dy * dy + dz * dz;
+
+		int level = 0;
+		while (level < instancers.length - 1 && distanceSqr >= switchDistanceSqr[level]) {
+			level++;
+		}
+
+		if (level < current && distanceSqr >= returnDistanceSqr[current - 1]) {
+			// not far enough inside to come back yet
+			return current;
+		}
+
+		return level;
+	}
+
+	/**
+	 * @return How much closer to or further from the camera the copy has to get to change level.
+	 */
+	private double distanceToChange(Entry entry) {
+		double dx = entry.x - camX;
+		double dy = entry.y - camY;
+		double dz = entry.z - camZ;
+		double distance = Math.sqrt(dx * dx + dy * dy + dz * dz);
+
+		double change = Double.POSITIVE_INFINITY;
+		if (entry.level < instancers.length - 1) {
+			change = switchDistance[entry.level] - distance;
+		}
+		if (entry.level > 0) {
+			change = Math.min(change, distance - returnDistance[entry.level - 1]);
+		}
+
+		return Math.max(change, 0);
+	}
+
+	private static class Entry {
+		/**
+		 * Written by whichever thread moves the copy, read by the sweep.
+		 */
+		private volatile double x;
+		private volatile double y;
+		private volatile double z;
+		private int level;
+
+		private Entry(double x, double y, double z) {
+			this.x = x;
+			this.y = y;
+			this.z = z;
+		}
+	}
+}
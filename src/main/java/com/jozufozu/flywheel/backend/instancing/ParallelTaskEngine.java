@@ -1,10 +1,10 @@
 package com.jozufozu.flywheel.backend.instancing;
 
 import java.util.ArrayList;
-import java.util.Deque;
-import java.util.List;
-import java.util.concurrent.ConcurrentLinkedDeque;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -12,26 +12,50 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import com.jozufozu.flywheel.Flywheel;
-import com.jozufozu.flywheel.backend.instancing.batching.WaitGroup;
 
 import net.minecraft.util.Mth;
 
 // https://github.com/CaffeineMC/sodium-fabric/blob/5d364ed5ba63f9067fcf72a078ca310bff4db3e9/src/main/java/me/jellysquid/mods/sodium/client/render/chunk/compile/ChunkBuilder.java
+/**
+ * A {@link TaskEngine} that runs jobs on a dedicated {@link ForkJoinPool}.
+ *
+ * <p>
+ *     Each worker owns a deque of jobs and steals from the others when it runs dry. Jobs submitted from a worker go to
+ *     that worker's own deque.
+ * </p>
+ * <p>
+ *     {@link #parallelFor} uses lazy binary splitting: a task only splits off half of its range when its worker has
+ *     run out of queued work for others to steal, and otherwise processes its range one grain at a time. Ranges are
+ *     cut up only as finely as the idle workers need, no matter how uneven the items are.
+ * </p>
+ * <p>
+ *     Tasks are recycled instead of allocated for every job and split. A task can only be reused once it's done, and
+ *     everything handed out before a {@link #syncPoint()} is done when it returns, so that's when they're taken back.
+ *     The free list grows to the most tasks used between two sync points and then stays put.
+ * </p>
+ */
 public class ParallelTaskEngine implements TaskEngine {
 	private static final Logger LOGGER = LogManager.getLogger("BatchExecutor");
 
-	private final AtomicBoolean running = new AtomicBoolean(false);
-	private final WaitGroup wg = new WaitGroup();
-
-	private final Deque<Runnable> jobQueue = new ConcurrentLinkedDeque<>();
-	private final List<Thread> threads = new ArrayList<>();
-
-	private final Object jobNotifier = new Object();
+	/**
+	 * A range task splits while its worker has at most this many tasks queued beyond what it's working on.
+	 */
+	private static final int SURPLUS_THRESHOLD = 2;
 
 	private final int threadCount;
 
 	private final String name;
 
+	@Nullable
+	private ForkJoinPool pool;
+
+	/**
+	 * Guards the task lists, tasks are handed out from workers when they split.
+	 */
+	private final Object taskLock = new Object();
+	private final ArrayList<Task> freeTasks = new ArrayList<>();
+	private final ArrayList<Task> usedTasks = new ArrayList<>();
+
 	public ParallelTaskEngine(String name) {
 		this.name = name;
 		threadCount = getOptimalThreadCount();
@@ -42,106 +66,140 @@ public class ParallelTaskEngine implements TaskEngine {
 	 * running, this method does nothing and exits.
 	 */
 	public void startWorkers() {
-		if (this.running.getAndSet(true)) {
+		if (this.pool != null) {
 			return;
 		}
 
-		if (!this.threads.isEmpty()) {
-			throw new IllegalStateException("Threads are still alive while in the STOPPED state");
-		}
-
-		for (int i = 0; i < this.threadCount; i++) {
-
-			Thread thread = new Thread(new WorkerRunnable(), name + " " + i);
-			thread.setPriority(Math.max(0, Thread.NORM_PRIORITY - 2));
-			thread.start();
+		this.pool = new ForkJoinPool(threadCount, this::newThread, (thread, e) -> Flywheel.LOGGER.error(e), false);
 
-			this.threads.add(thread);
-		}
-
-		LOGGER.info("Started {} worker threads", this.threads.size());
+		LOGGER.info("Started {} worker threads", threadCount);
 	}
 
 	public void stopWorkers() {
-		if (!this.running.getAndSet(false)) {
+		ForkJoinPool pool = this.pool;
+
+		if (pool == null) {
 			return;
 		}
 
-		if (this.threads.isEmpty()) {
-			throw new IllegalStateException("No threads are alive but the executor is in the RUNNING state");
-		}
+		this.pool = null;
 
-		synchronized (this.jobNotifier) {
-			this.jobNotifier.notifyAll();
-		}
+		pool.shutdownNow();
 
 		try {
-			for (Thread thread : this.threads) {
-				thread.join();
-			}
+			pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
 		} catch (InterruptedException ignored) {
 		}
 
-		this.threads.clear();
+		synchronized (taskLock) {
+			freeTasks.clear();
+			usedTasks.clear();
+		}
+	}
 
-		this.jobQueue.clear();
+	private ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+		ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+		thread.setName(name + " " + thread.getPoolIndex());
+		thread.setPriority(Math.max(0, Thread.NORM_PRIORITY - 2));
+		// pool threads otherwise get the system class loader, which can't see mod classes
+		thread.setContextClassLoader(ParallelTaskEngine.class.getClassLoader());
+		return thread;
 	}
 
 	/**
-	 * Submit a task to the pool.
+	 * Submit a task to the pool. If the workers aren't running, the task is run immediately.
 	 */
 	@Override
 	public void submit(@NotNull Runnable command) {
-		this.jobQueue.add(command);
-		this.wg.add(1);
+		ForkJoinPool pool = this.pool;
+
+		if (pool == null) {
+			runSafely(command);
+			return;
+		}
+
+		Task task = obtainTask();
+		task.command = command;
+		pool.execute(task);
+	}
+
+	@Override
+	public void parallelFor(int from, int to, int grain, @NotNull IntRangeConsumer consumer) {
+		if (from >= to) {
+			return;
+		}
 
-		synchronized (this.jobNotifier) {
-			this.jobNotifier.notify();
+		ForkJoinPool pool = this.pool;
+
+		if (pool == null) {
+			acceptSafely(consumer, from, to);
+			return;
 		}
+
+		pool.execute(obtainTask().range(from, to, Math.max(grain, 1), consumer));
 	}
 
 	/**
-	 * Wait for all running jobs to finish.
+	 * Wait for all running jobs to finish. The calling thread helps with any jobs that haven't started yet.
 	 */
 	@Override
 	public void syncPoint() {
-		Runnable job;
+		ForkJoinPool pool = this.pool;
 
-		// Finish everyone else's work...
-		while ((job = this.jobQueue.pollLast()) != null) {
-			processTask(job);
+		if (pool != null) {
+			pool.awaitQuiescence(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+			recycleTasks();
 		}
+	}
 
-		// and wait for any stragglers.
-		try {
-			this.wg.await();
-		} catch (InterruptedException ignored) {
+	private Task obtainTask() {
+		synchronized (taskLock) {
+			int last = freeTasks.size() - 1;
+			Task task = last >= 0 ? freeTasks.remove(last) : new Task();
+			usedTasks.add(task);
+			return task;
 		}
 	}
 
-	@Nullable
-	private Runnable getNextTask() {
-		Runnable job = this.jobQueue.pollFirst();
-
-		if (job == null) {
-			synchronized (ParallelTaskEngine.this.jobNotifier) {
-				try {
-					ParallelTaskEngine.this.jobNotifier.wait();
-				} catch (InterruptedException ignored) {
-				}
+	/**
+	 * Take back every task that's done.
+	 */
+	private void recycleTasks() {
+		synchronized (taskLock) {
+			for (int i = usedTasks.size() - 1; i >= 0; i--) {
+				Task task = usedTasks.get(i);
+
+				// the pool is quiet, but don't trust a task that hasn't been marked done yet
+				if (!task.isDone()) continue;
+
+				task.reset();
+				freeTasks.add(task);
+
+				int last = usedTasks.size() - 1;
+				usedTasks.set(i, usedTasks.get(last));
+				usedTasks.remove(last);
 			}
 		}
+	}
 
-		return job;
+	@Override
+	public int getParallelism() {
+		return threadCount;
 	}
 
-	private void processTask(Runnable job) {
+	private static void runSafely(Runnable job) {
 		try {
 			job.run();
 		} catch (Exception e) {
 			Flywheel.LOGGER.error(e);
-		} finally {
-			ParallelTaskEngine.this.wg.done();
+		}
+	}
+
+	private static void acceptSafely(IntRangeConsumer consumer, int from, int to) {
+		try {
+			consumer.accept(from, to);
+		} catch (Exception e) {
+			Flywheel.LOGGER.error(e);
 		}
 	}
 
@@ -156,23 +214,54 @@ public class ParallelTaskEngine implements TaskEngine {
 	private static int getMaxThreadCount() {
 		return Runtime.getRuntime().availableProcessors();
 	}
-	private class WorkerRunnable implements Runnable {
 
-		private final AtomicBoolean running = ParallelTaskEngine.this.running;
+	/**
+	 * Either a job passed to {@link #submit}, or a piece of a {@link #parallelFor} range. Forked halves are never
+	 * joined, {@link #syncPoint()} waits for them.
+	 */
+	private class Task extends RecursiveAction {
+		@Nullable
+		private Runnable command;
+		@Nullable
+		private IntRangeConsumer consumer;
+		private int grain;
+		private int from;
+		private int to;
+
+		private Task range(int from, int to, int grain, IntRangeConsumer consumer) {
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
+			this.consumer = consumer;
+			return this;
+		}
+
+		private void reset() {
+			reinitialize();
+			command = null;
+			consumer = null;
+		}
 
 		@Override
-		public void run() {
-			// Run until the chunk builder shuts down
-			while (this.running.get()) {
-				Runnable job = ParallelTaskEngine.this.getNextTask();
+		protected void compute() {
+			if (command != null) {
+				runSafely(command);
+				return;
+			}
 
-				if (job == null) {
-					continue;
+			while (from < to) {
+				if (to - from > grain && getSurplusQueuedTaskCount() <= SURPLUS_THRESHOLD) {
+					// nobody has anything to steal from us, give them half
+					int mid = (from + to) >>> 1;
+					obtainTask().range(mid, to, grain, consumer)
+							.fork();
+					to = mid;
+				} else {
+					int end = Math.min(from + grain, to);
+					acceptSafely(consumer, from, end);
+					from = end;
 				}
-
-				ParallelTaskEngine.this.processTask(job);
 			}
 		}
-
 	}
 }
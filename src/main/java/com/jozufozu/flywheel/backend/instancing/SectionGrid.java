@@ -0,0 +1,315 @@
+package com.jozufozu.flywheel.backend.instancing;
+
+import javax.annotation.Nullable;
+
+import com.jozufozu.flywheel.api.instance.DynamicInstance;
+import com.jozufozu.flywheel.api.instance.TickableInstance;
+import com.jozufozu.flywheel.light.MovingListener;
+import com.jozufozu.flywheel.mixin.FrustumAccessor;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.Reference2LongOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.minecraft.client.renderer.culling.Frustum;
+import net.minecraft.core.SectionPos;
+
+/**
+ * A spatial index of the dynamic and tickable instances of an {@link InstanceManager}.
+ *
+ * <p>
+ *     Instances are bucketed by the {@link SectionPos} their {@link AbstractInstance#getWorldPosition() world position}
+ *     is in, so culling and update limiting can reject a whole section with one test instead of visiting every
+ *     instance in it. Each section's culling bounds are grown by the largest {@link AbstractInstance#getCullingRadius()
+ *     culling radius} of its members.
+ * </p>
+ * <p>
+ *     Instances that can't be grouped, because they opted out of distance based rate limiting or have unbounded
+ *     extents, go in a separate {@link #getUngrouped() ungrouped} bucket and have to be checked individually.
+ * </p>
+ * <p>
+ *     Instances that are also {@link MovingListener}s are re-bucketed by {@link #updateMovers()}.
+ * </p>
+ */
+public class SectionGrid {
+
+	private final Long2ObjectOpenHashMap<Section> sections = new Long2ObjectOpenHashMap<>();
+	/**
+	 * The same sections as above, packed densely so they can be walked every frame without an iterator.
+	 */
+	private final ObjectArrayList<Section> dense = new ObjectArrayList<>();
+	private final Reference2LongOpenHashMap<AbstractInstance> sectionOf = new Reference2LongOpenHashMap<>();
+	private final ReferenceOpenHashSet<AbstractInstance> movers = new ReferenceOpenHashSet<>();
+	private final Section ungrouped = new Section(SectionPos.asLong(0, 0, 0));
+
+	public void add(AbstractInstance instance) {
+		if (!(instance instanceof DynamicInstance) && !(instance instanceof TickableInstance)) {
+			return;
+		}
+
+		long pos = SectionPos.asLong(instance.getWorldPosition());
+
+		sectionOf.put(instance, pos);
+		insert(instance, pos);
+
+		if (instance instanceof MovingListener) {
+			movers.add(instance);
+		}
+	}
+
+	public void remove(AbstractInstance instance) {
+		if (!sectionOf.containsKey(instance)) {
+			return;
+		}
+
+		long pos = sectionOf.removeLong(instance);
+		movers.remove(instance);
+
+		Section section = sections.get(pos);
+
+		if (section != null) {
+			section.remove(instance);
+
+			if (section.isEmpty()) {
+				removeSection(pos);
+			}
+		}
+
+		ungrouped.remove(instance);
+	}
+
+	/**
+	 * Move all moving instances to the section they're in now.
+	 */
+	public void updateMovers() {
+		if (movers.isEmpty()) {
+			return;
+		}
+
+		for (AbstractInstance instance : movers) {
+			long pos = SectionPos.asLong(instance.getWorldPosition());
+
+			if (sectionOf.getLong(instance) != pos) {
+				move(instance, pos);
+				continue;
+			}
+
+			Section section = sections.get(pos);
+			if (section != null) {
+				// the instance may have grown without leaving its section
+				section.includeRadius(instance.getCullingRadius());
+			}
+		}
+	}
+
+	private void move(AbstractInstance instance, long to) {
+		long from = sectionOf.put(instance, to);
+
+		Section old = sections.get(from);
+		if (old != null) {
+			old.remove(instance);
+
+			if (old.isEmpty()) {
+				removeSection(from);
+			}
+		}
+		ungrouped.remove(instance);
+
+		insert(instance, to);
+	}
+
+	private void insert(AbstractInstance instance, long pos) {
+		Section section = sections.get(pos);
+
+		if (section == null) {
+			section = new Section(pos);
+			section.index = dense.size();
+			sections.put(pos, section);
+			dense.add(section);
+		}
+
+		section.add(instance, ungrouped);
+
+		// everything may have gone to the ungrouped bucket
+		if (section.isEmpty()) {
+			removeSection(pos);
+		}
+	}
+
+	private void removeSection(long pos) {
+		Section section = sections.remove(pos);
+
+		if (section == null) {
+			return;
+		}
+
+		int last = dense.size() - 1;
+		Section moved = dense.get(last);
+		dense.set(section.index, moved);
+		moved.index = section.index;
+		dense.remove(last);
+	}
+
+	public void clear() {
+		sections.clear();
+		dense.clear();
+		sectionOf.clear();
+		movers.clear();
+		ungrouped.clear();
+	}
+
+	public int getSectionCount() {
+		return dense.size();
+	}
+
+	public Section getSection(int i) {
+		return dense.get(i);
+	}
+
+	/**
+	 * @return The bucket of instances that must be checked individually.
+	 */
+	public Section getUngrouped() {
+		return ungrouped;
+	}
+
+	public static class Section {
+		public final long pos;
+
+		/**
+		 * Where this section is in the dense list.
+		 */
+		private int index;
+
+		final ObjectArrayList<DynamicInstance> dynamic = new ObjectArrayList<>();
+		final ObjectArrayList<TickableInstance> tickable = new ObjectArrayList<>();
+
+		/**
+		 * The largest culling radius of any member. Only ever grows while the section is alive.
+		 */
+		private int radius;
+
+		private Section(long pos) {
+			this.pos = pos;
+		}
+
+		private void add(AbstractInstance instance, Section ungrouped) {
+			int radius = instance.getCullingRadius();
+
+			if (instance instanceof DynamicInstance dyn) {
+				if (radius == AbstractInstance.UNBOUNDED_RADIUS || !dyn.decreaseFramerateWithDistance()) {
+					ungrouped.addDynamic(instance, dyn);
+				} else {
+					addDynamic(instance, dyn);
+					includeRadius(radius);
+				}
+			}
+
+			if (instance instanceof TickableInstance tickable) {
+				// ticks aren't culled, so the radius doesn't matter here
+				if (!tickable.decreaseTickRateWithDistance()) {
+					ungrouped.addTickable(instance, tickable);
+				} else {
+					addTickable(instance, tickable);
+				}
+			}
+		}
+
+		private void addDynamic(AbstractInstance instance, DynamicInstance dyn) {
+			instance.dynamicSlot = dynamic.size();
+			dynamic.add(dyn);
+		}
+
+		private void addTickable(AbstractInstance instance, TickableInstance tick) {
+			instance.tickableSlot = tickable.size();
+			tickable.add(tick);
+		}
+
+		private void includeRadius(int radius) {
+			if (radius != AbstractInstance.UNBOUNDED_RADIUS) {
+				this.radius = Math.max(this.radius, radius);
+			}
+		}
+
+		/**
+		 * Remove the instance in constant time, if it's in this section. The last member of each list takes its slot.
+		 */
+		private void remove(AbstractInstance instance) {
+			int slot = instance.dynamicSlot;
+			if (slot >= 0 && slot < dynamic.size() && dynamic.get(slot) == instance) {
+				DynamicInstance moved = dynamic.pop();
+				if (moved != instance) {
+					dynamic.set(slot, moved);
+					((AbstractInstance) moved).dynamicSlot = slot;
+				}
+				instance.dynamicSlot = -1;
+			}
+
+			slot = instance.tickableSlot;
+			if (slot >= 0 && slot < tickable.size() && tickable.get(slot) == instance) {
+				TickableInstance moved = tickable.pop();
+				if (moved != instance) {
+					tickable.set(slot, moved);
+					((AbstractInstance) moved).tickableSlot = slot;
+				}
+				instance.tickableSlot = -1;
+			}
+		}
+
+		private void clear() {
+			dynamic.clear();
+			tickable.clear();
+			radius = 0;
+		}
+
+		public boolean isEmpty() {
+			return dynamic.isEmpty() && tickable.isEmpty();
+		}
+
+		public int getDynamicCount() {
+			return dynamic.size();
+		}
+
+		public int getTickableCount() {
+			return tickable.size();
+		}
+
+		public DynamicInstance getDynamic(int i) {
+			return dynamic.get(i);
+		}
+
+		public TickableInstance getTickable(int i) {
+			return tickable.get(i);
+		}
+
+		/**
+		 * @return {@code true} if any member of this section could be visible in the given frustum.
+		 */
+		public boolean checkFrustum(@Nullable Frustum frustum) {
+			if (frustum == null) {
+				return true;
+			}
+
+			// one more block for entities that move between ticks
+			int grow = radius + 1;
+
+			int minX = SectionPos.sectionToBlockCoord(SectionPos.x(pos));
+			int minY = SectionPos.sectionToBlockCoord(SectionPos.y(pos));
+			int minZ = SectionPos.sectionToBlockCoord(SectionPos.z(pos));
+
+			return ((FrustumAccessor) frustum).flywheel$cubeInFrustum(minX - grow, minY - grow, minZ - grow, minX + 16 + grow, minY + 16 + grow, minZ + 16 + grow);
+		}
+
+		public int getCenterX() {
+			return SectionPos.sectionToBlockCoord(SectionPos.x(pos), 8);
+		}
+
+		public int getCenterY() {
+			return SectionPos.sectionToBlockCoord(SectionPos.y(pos), 8);
+		}
+
+		public int getCenterZ() {
+			return SectionPos.sectionToBlockCoord(SectionPos.z(pos), 8);
+		}
+	}
+}
@@ -5,8 +5,36 @@ import org.jetbrains.annotations.NotNull;
 public interface TaskEngine {
 	void submit(@NotNull Runnable command);
 
+	/**
+	 * Process the range {@code [from, to)}, split into pieces that may run in parallel.
+	 *
+	 * <p>
+	 *     The engine decides how to split the range, so callers don't have to guess how to balance the load.
+	 *     Pieces are never smaller than {@code grain} items, except for the last one. Like {@link #submit}, this
+	 *     may return before the work is done; call {@link #syncPoint()} to wait for it.
+	 * </p>
+	 *
+	 * @param grain The smallest number of items worth processing as a separate piece.
+	 */
+	default void parallelFor(int from, int to, int grain, @NotNull IntRangeConsumer consumer) {
+		if (from < to) {
+			consumer.accept(from, to);
+		}
+	}
+
+	default void parallelFor(int from, int to, @NotNull IntRangeConsumer consumer) {
+		parallelFor(from, to, 1, consumer);
+	}
+
 	/**
 	 * Wait for all running jobs to finish.
 	 */
 	void syncPoint();
+
+	/**
+	 * @return How many tasks can run at the same time.
+	 */
+	default int getParallelism() {
+		return 1;
+	}
 }
@@ -6,8 +6,11 @@ import java.util.function.Supplier;
 
 import com.jozufozu.flywheel.api.InstanceData;
 import com.jozufozu.flywheel.api.Instancer;
+import com.jozufozu.flywheel.api.LodInstancer;
+import com.jozufozu.flywheel.api.LodLevel;
 import com.jozufozu.flywheel.api.Material;
 import com.jozufozu.flywheel.api.struct.Batched;
+import com.jozufozu.flywheel.backend.instancing.LodGroup;
 import com.jozufozu.flywheel.core.model.Model;
 import com.mojang.blaze3d.vertex.PoseStack;
 import com.mojang.blaze3d.vertex.VertexConsumer;
@@ -15,6 +18,7 @@ import com.mojang.blaze3d.vertex.VertexConsumer;
 public class BatchedMaterial<D extends InstanceData> implements Material<D> {
 
 	protected final Map<Object, CPUInstancer<D>> models;
+	protected final Map<Object, LodGroup<D>> lods = new HashMap<>();
 	private final Batched<D> type;
 
 	public BatchedMaterial(Batched<D> type) {
@@ -28,6 +32,20 @@ public class BatchedMaterial<D extends InstanceData> implements Material<D> {
 		return models.computeIfAbsent(key, $ -> new CPUInstancer<>(type, modelSupplier.get()));
 	}
 
+	@Override
+	public LodInstancer<D> lod(Object key, LodLevel... levels) {
+		return lods.computeIfAbsent(key, $ -> new LodGroup<>(this, key, levels));
+	}
+
+	/**
+	 * Move instances between levels of detail for the camera's new position.
+	 */
+	public void updateLods(double camX, double camY, double camZ) {
+		for (LodGroup<D> lod : lods.values()) {
+			lod.update(camX, camY, camZ);
+		}
+	}
+
 	public void setupAndRenderInto(PoseStack stack, VertexConsumer buffer) {
 		for (CPUInstancer<D> instancer : models.values()) {
 			instancer.setup();
@@ -41,5 +59,13 @@ public class BatchedMaterial<D extends InstanceData> implements Material<D> {
 	public void clear() {
 		models.values()
 				.forEach(CPUInstancer::clear);
+		lods.values()
+				.forEach(LodGroup::clear);
+	}
+
+	public void delete() {
+		models.values()
+				.forEach(CPUInstancer::delete);
+		lods.clear();
 	}
 }
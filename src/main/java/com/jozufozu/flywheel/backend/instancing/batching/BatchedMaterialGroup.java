@@ -1,8 +1,11 @@
 package com.jozufozu.flywheel.backend.instancing.batching;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import javax.annotation.Nullable;
+
 import com.jozufozu.flywheel.api.InstanceData;
 import com.jozufozu.flywheel.api.MaterialGroup;
 import com.jozufozu.flywheel.api.struct.Batched;
@@ -23,6 +26,14 @@ public class BatchedMaterialGroup implements MaterialGroup {
 	private int vertexCount;
 	private int instanceCount;
 
+	/**
+	 * The range of this group's instancers in the list the engine is currently rendering.
+	 */
+	private int firstInstancer;
+	private int lastInstancer;
+	@Nullable
+	private DirectVertexConsumer output;
+
 	public BatchedMaterialGroup(RenderType state) {
 		this.state = state;
 	}
@@ -37,28 +48,57 @@ public class BatchedMaterialGroup implements MaterialGroup {
 		}
 	}
 
-	public void render(PoseStack stack, BatchDrawingTracker source, TaskEngine pool) {
+	/**
+	 * Add all our instancers to the end of the engine's list for this layer and remember where they are.
+	 */
+	void collectInstancers(List<CPUInstancer<?>> dest) {
+		firstInstancer = dest.size();
+		for (BatchedMaterial<?> material : materials.values()) {
+			dest.addAll(material.models.values());
+		}
+		lastInstancer = dest.size();
+	}
 
-		vertexCount = 0;
+	/**
+	 * Claim space in the draw buffer for all of our instancers, now that they're set up.
+	 * @param instancers The list passed to {@link #collectInstancers}.
+	 * @param offsets The vertex offset of each instancer in the list, with the total at the end.
+	 */
+	void claimOutput(BatchDrawingTracker source, List<CPUInstancer<?>> instancers, int[] offsets) {
+		vertexCount = offsets[lastInstancer] - offsets[firstInstancer];
 		instanceCount = 0;
-		for (BatchedMaterial<?> material : materials.values()) {
-			for (CPUInstancer<?> instancer : material.models.values()) {
-				instancer.setup();
-				vertexCount += instancer.getVertexCount();
-				instanceCount += instancer.getInstanceCount();
-			}
+		for (int i = firstInstancer; i < lastInstancer; i++) {
+			instanceCount += instancers.get(i).getInstanceCount();
 		}
 
-		DirectVertexConsumer consumer = source.getDirectConsumer(state, vertexCount);
+		if (vertexCount <= 0) {
+			output = null;
+			return;
+		}
+
+		output = source.getDirectConsumer(state, vertexCount);
 
 		// avoids rendering garbage, but doesn't fix the issue of some instances not being buffered
-		consumer.memSetZero();
+		output.memSetZero();
+	}
 
-		for (BatchedMaterial<?> material : materials.values()) {
-			for (CPUInstancer<?> instancer : material.models.values()) {
-				instancer.sbb.context.outputColorDiffuse = !consumer.hasOverlay() && !OptifineHandler.isUsingShaders();
-				instancer.submitTasks(stack, pool, consumer);
-			}
+	/**
+	 * Hand each instancer its slice of the output and let it submit its transform tasks.
+	 * @param wait Counts the instances still to be drawn.
+	 */
+	void submitTasks(PoseStack stack, TaskEngine pool, List<CPUInstancer<?>> instancers, int[] offsets, WaitGroup wait) {
+		DirectVertexConsumer output = this.output;
+		this.output = null;
+
+		if (output == null) return;
+
+		boolean outputColorDiffuse = !output.hasOverlay() && !OptifineHandler.isUsingShaders();
+		int base = offsets[firstInstancer];
+
+		for (int i = firstInstancer; i < lastInstancer; i++) {
+			CPUInstancer<?> instancer = instancers.get(i);
+			instancer.sbb.context.outputColorDiffuse = outputColorDiffuse;
+			instancer.submitTasks(stack, pool, output.slice(offsets[i] - base, offsets[i + 1] - offsets[i]), wait);
 		}
 	}
 
@@ -66,7 +106,14 @@ public class BatchedMaterialGroup implements MaterialGroup {
 		materials.values().forEach(BatchedMaterial::clear);
 	}
 
+	public void updateLods(double camX, double camY, double camZ) {
+		for (BatchedMaterial<?> material : materials.values()) {
+			material.updateLods(camX, camY, camZ);
+		}
+	}
+
 	public void delete() {
+		materials.values().forEach(BatchedMaterial::delete);
 		materials.clear();
 	}
 
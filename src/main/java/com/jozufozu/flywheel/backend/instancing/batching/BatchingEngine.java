@@ -1,35 +1,77 @@
 package com.jozufozu.flywheel.backend.instancing.batching;
 
+import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import javax.annotation.Nullable;
+
 import com.jozufozu.flywheel.api.MaterialGroup;
 import com.jozufozu.flywheel.backend.RenderLayer;
 import com.jozufozu.flywheel.backend.instancing.BatchDrawingTracker;
 import com.jozufozu.flywheel.backend.instancing.Engine;
+import com.jozufozu.flywheel.backend.instancing.FrameProfiler;
+import com.jozufozu.flywheel.backend.instancing.IntRangeConsumer;
 import com.jozufozu.flywheel.backend.instancing.TaskEngine;
 import com.jozufozu.flywheel.event.RenderLayerEvent;
 import com.jozufozu.flywheel.util.FlwUtil;
 import com.mojang.blaze3d.platform.Lighting;
+import com.mojang.blaze3d.vertex.PoseStack;
 import com.mojang.math.Matrix4f;
 
 import net.minecraft.client.Camera;
 import net.minecraft.client.renderer.RenderType;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Vec3i;
+import net.minecraft.world.phys.Vec3;
 
 public class BatchingEngine implements Engine {
 
 	private final Map<RenderLayer, Map<RenderType, BatchedMaterialGroup>> layers;
 	private final BatchDrawingTracker batchTracker = new BatchDrawingTracker();
 
+	/**
+	 * The instancers of the layer being rendered and their vertex offsets, reused between layers and frames.
+	 */
+	private final List<CPUInstancer<?>> instancers = new ArrayList<>();
+	private int[] offsets = new int[1];
+
+	private final WaitGroup setupWait = new WaitGroup();
+	private final IntRangeConsumer setupTask = this::setupRange;
+	/**
+	 * Counts the transforms of the layer being rendered. Only used when drawing in the same frame.
+	 */
+	private final WaitGroup layerWait = new WaitGroup();
+
+	/**
+	 * Each layer's pair of output buffers, or null if this engine draws what it transforms in the same frame.
+	 */
+	@Nullable
+	private final Map<RenderLayer, DoubleBufferedOutput> outputs;
+
 	public BatchingEngine() {
+		this(false);
+	}
+
+	/**
+	 * @param doubleBuffered Whether to transform each layer while drawing what was transformed for it last frame.
+	 */
+	public BatchingEngine(boolean doubleBuffered) {
 		this.layers = new EnumMap<>(RenderLayer.class);
 		for (RenderLayer value : RenderLayer.values()) {
 			layers.put(value, new HashMap<>());
 		}
+
+		if (doubleBuffered) {
+			outputs = new EnumMap<>(RenderLayer.class);
+			for (RenderLayer value : RenderLayer.values()) {
+				outputs.put(value, new DoubleBufferedOutput());
+			}
+		} else {
+			outputs = null;
+		}
 	}
 
 	@Override
@@ -44,11 +86,74 @@ public class BatchingEngine implements Engine {
 
 	@Override
 	public void render(TaskEngine taskEngine, RenderLayerEvent event) {
+		submit(taskEngine, event, event.stack);
+		draw(taskEngine, event, event.stack);
+	}
+
+	/**
+	 * Start transforming the given layer. Other things can be drawn while the transforms run.
+	 * @param stack The pose to transform with. Must stay untouched until {@link #draw} returns.
+	 */
+	public void submit(TaskEngine taskEngine, RenderLayerEvent event, PoseStack stack) {
 		Map<RenderType, BatchedMaterialGroup> groups = layers.get(event.getLayer());
+
+		if (outputs != null) {
+			// last frame's transforms for this layer still own its instancers
+			FrameProfiler.push("awaitPrevious");
+			outputs.get(event.getLayer()).awaitPending();
+			FrameProfiler.pop();
+		}
+
+		// every instancer in the layer, group after group, so they can all be set up and sized in one go
+		instancers.clear();
 		for (BatchedMaterialGroup group : groups.values()) {
-			group.render(event.stack, batchTracker, taskEngine);
+			group.collectInstancers(instancers);
+		}
+
+		int count = instancers.size();
+		if (this.offsets.length < count + 1) {
+			this.offsets = new int[count + 1];
 		}
+		int[] offsets = this.offsets;
+
+		FrameProfiler.push("setup");
+		// only wait for our own setup, earlier layers may still be transforming
+		setupWait.add(count);
+		taskEngine.parallelFor(0, count, setupTask);
+		setupWait.awaitUninterruptibly();
+		FrameProfiler.pop();
+
+		offsets[0] = 0;
+		for (int i = 1; i <= count; i++) {
+			offsets[i] += offsets[i - 1];
+		}
+
+		DoubleBufferedOutput output = outputs != null ? outputs.get(event.getLayer()) : null;
+
+		BatchDrawingTracker tracker = batchTracker;
+		WaitGroup wait = layerWait;
 
+		if (output != null) {
+			tracker = output.getWriteTracker();
+			stack = output.beginWrite(stack);
+			wait = output.getPending();
+		}
+
+		// claim every draw buffer before any transforms start so workers go straight from one group to the next
+		for (BatchedMaterialGroup group : groups.values()) {
+			group.claimOutput(tracker, instancers, offsets);
+		}
+
+		for (BatchedMaterialGroup group : groups.values()) {
+			group.submitTasks(stack, taskEngine, instancers, offsets, wait);
+		}
+	}
+
+	/**
+	 * Wait for the transforms started by {@link #submit} and draw the layer.
+	 * @param stack The pose that was passed to {@link #submit}.
+	 */
+	public void draw(TaskEngine taskEngine, RenderLayerEvent event, PoseStack stack) {
 		// FIXME: this probably breaks some vanilla stuff but it works much better for flywheel
 		Matrix4f mat = new Matrix4f();
 		mat.setIdentity();
@@ -58,17 +163,55 @@ public class BatchingEngine implements Engine {
 			Lighting.setupLevel(mat);
 		}
 
-		taskEngine.syncPoint();
+		if (outputs != null) {
+			outputs.get(event.getLayer()).drawPrevious(stack);
+			return;
+		}
+
+		// only this layer's transforms, earlier layers are already drawn and nothing else in the pool matters to us
+		FrameProfiler.push("awaitLayer");
+		layerWait.awaitUninterruptibly();
+		FrameProfiler.pop();
+
 		batchTracker.endBatch();
 	}
 
+	/**
+	 * Set up a range of {@link #instancers} and store their vertex counts in {@link #offsets}.
+	 */
+	private void setupRange(int from, int to) {
+		try {
+			for (int i = from; i < to; i++) {
+				CPUInstancer<?> instancer = instancers.get(i);
+				instancer.setup();
+				offsets[i + 1] = instancer.getVertexCount();
+			}
+		} finally {
+			setupWait.done(to - from);
+		}
+	}
+
 	@Override
 	public void delete() {
+		if (outputs != null) {
+			outputs.values().forEach(DoubleBufferedOutput::delete);
+		}
+
+		layers.values()
+				.stream()
+				.flatMap(FlwUtil::mapValues)
+				.forEach(BatchedMaterialGroup::delete);
 	}
 
 	@Override
 	public void beginFrame(Camera info) {
+		Vec3 camera = info.getPosition();
 
+		for (Map<RenderType, BatchedMaterialGroup> groups : layers.values()) {
+			for (BatchedMaterialGroup group : groups.values()) {
+				group.updateLods(camera.x, camera.y, camera.z);
+			}
+		}
 	}
 
 	@Override
@@ -3,72 +3,133 @@ package com.jozufozu.flywheel.backend.instancing.batching;
 import com.jozufozu.flywheel.api.InstanceData;
 import com.jozufozu.flywheel.api.struct.Batched;
 import com.jozufozu.flywheel.backend.instancing.AbstractInstancer;
+import com.jozufozu.flywheel.backend.instancing.AdaptivePartitioner;
 import com.jozufozu.flywheel.backend.instancing.TaskEngine;
 import com.jozufozu.flywheel.backend.model.DirectVertexConsumer;
 import com.jozufozu.flywheel.core.model.Model;
 import com.jozufozu.flywheel.core.model.ModelTransformer;
+import com.jozufozu.flywheel.util.DiffuseLightCalculator;
 import com.mojang.blaze3d.vertex.PoseStack;
 import com.mojang.blaze3d.vertex.VertexConsumer;
 
 public class CPUInstancer<D extends InstanceData> extends AbstractInstancer<D> {
 
+	/**
+	 * Params are only touched by the thread transforming an instance, so each worker keeps one around.
+	 */
+	private static final ThreadLocal<ModelTransformer.Params> PARAMS = ThreadLocal.withInitial(ModelTransformer.Params::new);
+	/**
+	 * The identity, for transforming instances that go into the cache. Only ever read, so all threads share it.
+	 */
+	private static final PoseStack UNPOSED = new PoseStack();
+
 	private final Batched<D> batchingType;
 
 	final ModelTransformer sbb;
 
+	/**
+	 * Sizes the smallest transform tasks. Bigger models cost more per instance, so this is per instancer.
+	 */
+	private final AdaptivePartitioner partitioner;
+
+	private final TransformCache cache = new TransformCache();
+
 	public CPUInstancer(Batched<D> type, Model modelData) {
 		super(type::create, modelData);
 		batchingType = type;
 
 		sbb = new ModelTransformer(modelData);
+		// a guess until the first frame is measured
+		partitioner = new AdaptivePartitioner(modelData.vertexCount() * 20.0);
 	}
 
-	void submitTasks(PoseStack stack, TaskEngine pool, DirectVertexConsumer consumer) {
+	/**
+	 * Transform all instances into the given consumer on the task engine.
+	 * @param whole Exactly enough room for all of our vertices. Every task knows where it writes from its indices alone.
+	 * @param wait Counts down by one for each instance that's been drawn.
+	 */
+	void submitTasks(PoseStack stack, TaskEngine pool, DirectVertexConsumer whole, WaitGroup wait) {
 		int instances = getInstanceCount();
 
-		while (instances > 0) {
-			int end = instances;
-			instances -= 512;
-			int start = Math.max(instances, 0);
+		if (instances <= 0) return;
 
-			int verts = getModelVertexCount() * (end - start);
+		int modelVertices = getModelVertexCount();
 
-			DirectVertexConsumer sub = consumer.split(verts);
+		// the level can't change mid frame, look it up once instead of once per instance
+		DiffuseLightCalculator diffuse = DiffuseLightCalculator.forCurrentLevel();
 
-			pool.submit(() -> drawRange(stack, sub, start, end));
-		}
+		boolean store = cache.prepare(stack.last(), diffuse, sbb.context, whole.format, instances, modelVertices);
+		boolean reuse = store && cache.isReusable();
+
+		wait.add(instances);
+
+		pool.parallelFor(0, instances, partitioner.getGrainSize(), (start, end) -> {
+			try {
+				DirectVertexConsumer sub = whole.slice(start * modelVertices, (end - start) * modelVertices);
+
+				drawRange(stack, sub, diffuse, store, reuse, start, end);
+			} finally {
+				wait.done(end - start);
+			}
+		});
 	}
 
-	private void drawRange(PoseStack stack, VertexConsumer buffer, int from, int to) {
-		ModelTransformer.Params params = new ModelTransformer.Params();
+	private void drawRange(PoseStack stack, DirectVertexConsumer buffer, DiffuseLightCalculator diffuse, boolean store, boolean reuse, int from, int to) {
+		long startTime = System.nanoTime();
+		ModelTransformer.Params params = PARAMS.get();
+
+		for (int i = from; i < to; i++) {
+			D d = data.get(i);
+
+			// always clear the flag, so the cache only has to catch up with what changed since the last frame
+			if (!d.checkDirtyAndClear() && reuse) {
+				cache.copy(i, buffer);
+				continue;
+			}
 
-		for (D d : data.subList(from, to)) {
 			params.loadDefault();
 
 			batchingType.transform(d, params);
 
-			sbb.renderInto(params, stack, buffer);
+			if (store) {
+				// the cache keeps vertices without the pose, so they're still good after the camera moves
+				long out = buffer.getWritePointer();
+				sbb.renderInto(params, UNPOSED, buffer, diffuse);
+				cache.store(i, out);
+				cache.applyPose(buffer, out);
+			} else {
+				sbb.renderInto(params, stack, buffer, diffuse);
+			}
 		}
+
+		partitioner.record(to - from, System.nanoTime() - startTime);
 	}
 
 	void drawAll(PoseStack stack, VertexConsumer buffer) {
-		ModelTransformer.Params params = new ModelTransformer.Params();
+		ModelTransformer.Params params = PARAMS.get();
+		DiffuseLightCalculator diffuse = DiffuseLightCalculator.forCurrentLevel();
+
 		for (D d : data) {
 			params.loadDefault();
 
 			batchingType.transform(d, params);
 
-			sbb.renderInto(params, stack, buffer);
+			sbb.renderInto(params, stack, buffer, diffuse);
 		}
 	}
 
 	void setup() {
 		if (anyToRemove) {
-			data.removeIf(InstanceData::isRemoved);
+			// marks every instance that moves dirty, so cached vertices never end up in the wrong slot
+			removeDeletedInstances();
 			anyToRemove = false;
 		}
 	}
 
+	void delete() {
+		cache.delete();
+	}
+
 	@Override
 	public void notifyDirty() {
 		// noop
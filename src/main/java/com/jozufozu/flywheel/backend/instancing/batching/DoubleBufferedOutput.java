@@ -0,0 +1,106 @@
+package com.jozufozu.flywheel.backend.instancing.batching;
+
+import com.jozufozu.flywheel.backend.instancing.BatchDrawingTracker;
+import com.mojang.blaze3d.systems.RenderSystem;
+import com.mojang.blaze3d.vertex.PoseStack;
+import com.mojang.math.Matrix4f;
+
+/**
+ * Where one layer of a double buffered {@link BatchingEngine} writes its vertices.
+ *
+ * <p>
+ *     This frame's transforms write into one set of draw buffers while the set filled last frame gets drawn, so the
+ *     render thread never waits on the transforms it just submitted. Last frame's vertices were transformed with last
+ *     frame's pose, so they're drawn with a model view matrix that carries them over to this frame's camera. Moving
+ *     instances still lag a frame behind.
+ * </p>
+ */
+class DoubleBufferedOutput {
+
+	private final BatchDrawingTracker[] trackers = { new BatchDrawingTracker(true), new BatchDrawingTracker(true) };
+	/**
+	 * The pose each set of buffers was transformed with. Tasks outlive the event's stack, so they get their own.
+	 */
+	private final PoseStack[] poses = { new PoseStack(), new PoseStack() };
+	private final WaitGroup pending = new WaitGroup();
+
+	private final Matrix4f correction = new Matrix4f();
+	private final Matrix4f inverse = new Matrix4f();
+
+	/**
+	 * The index of the buffers being written to.
+	 */
+	private int back;
+
+	/**
+	 * Wait for the transforms submitted last frame. They usually finished long ago.
+	 */
+	void awaitPending() {
+		pending.awaitUninterruptibly();
+	}
+
+	/**
+	 * Swap buffers. Must be called after {@link #awaitPending()}.
+	 * @param stack The pose this frame is rendered with.
+	 * @return A copy of the pose for the new transform tasks to use.
+	 */
+	PoseStack beginWrite(PoseStack stack) {
+		back ^= 1;
+
+		PoseStack.Pose from = stack.last();
+		PoseStack.Pose to = poses[back].last();
+		to.pose().load(from.pose());
+		to.normal().load(from.normal());
+
+		return poses[back];
+	}
+
+	BatchDrawingTracker getWriteTracker() {
+		return trackers[back];
+	}
+
+	/**
+	 * Counts the instances of this frame that still have to be transformed.
+	 */
+	WaitGroup getPending() {
+		return pending;
+	}
+
+	/**
+	 * Draw what was written last frame.
+	 * @param stack The pose this frame is rendered with.
+	 */
+	void drawPrevious(PoseStack stack) {
+		int front = back ^ 1;
+
+		inverse.load(poses[front].last().pose());
+
+		if (!inverse.invert()) {
+			trackers[front].endBatch();
+			return;
+		}
+
+		// current * previous^-1 takes vertices from last frame's camera space into this one's
+		correction.load(stack.last().pose());
+		correction.multiply(inverse);
+
+		PoseStack modelView = RenderSystem.getModelViewStack();
+		modelView.pushPose();
+		modelView.mulPoseMatrix(correction);
+		RenderSystem.applyModelViewMatrix();
+
+		trackers[front].endBatch();
+
+		modelView.popPose();
+		RenderSystem.applyModelViewMatrix();
+	}
+
+	/**
+	 * Free the draw buffers. The task engine must have finished this layer's transforms already.
+	 */
+	void delete() {
+		for (BatchDrawingTracker tracker : trackers) {
+			tracker.delete();
+		}
+	}
+}
@@ -0,0 +1,156 @@
+package com.jozufozu.flywheel.backend.instancing.batching;
+
+import java.nio.FloatBuffer;
+
+import javax.annotation.Nullable;
+
+import org.lwjgl.system.MemoryUtil;
+
+import com.jozufozu.flywheel.backend.model.DirectVertexConsumer;
+import com.jozufozu.flywheel.core.model.ModelTransformer;
+import com.jozufozu.flywheel.util.DiffuseLightCalculator;
+import com.mojang.blaze3d.vertex.PoseStack;
+import com.mojang.blaze3d.vertex.VertexFormat;
+
+/**
+ * The transformed vertices of each instance in a {@link CPUInstancer}, as of the last frame the instance was drawn.
+ * Instances that haven't been marked dirty since then can be copied into the output instead of transformed again.
+ *
+ * <p>
+ *     Vertices are stored relative to the origin, without the pose, and the pose is applied to their positions
+ *     whenever they're copied out. Moving the camera costs one matrix multiply per vertex instead of a full transform.
+ *     Anything else that goes into the transform besides the instance itself invalidates every entry at once: the
+ *     diffuse lighting and the vertex format. Instancers that put the pose into their normals, and instancers whose
+ *     cache would grow past {@link #MAX_BYTES}, don't keep one at all.
+ * </p>
+ */
+final class TransformCache {
+
+	/**
+	 * The most off-heap memory a single instancer may use for its cache.
+	 */
+	static final long MAX_BYTES = 16 * 1024 * 1024;
+
+	/**
+	 * This frame's pose, column major, applied to every vertex on the way out of the cache.
+	 */
+	private final float[] pose = new float[16];
+	private final FloatBuffer poseBuffer = FloatBuffer.wrap(pose);
+	@Nullable
+	private DiffuseLightCalculator diffuse;
+	private boolean outputColorDiffuse;
+	@Nullable
+	private VertexFormat format;
+
+	private long ptr;
+	private long capacity;
+	private long instanceBytes;
+	private int modelVertices;
+
+	/**
+	 * Whether the entries left over from last frame were made with the same lighting and format as this one.
+	 */
+	private boolean reusable;
+
+	/**
+	 * Get the cache ready for a frame, growing it to fit all instances.
+	 *
+	 * @param context How the instancer transforms its model.
+	 * @return {@code true} if the cache should be written to this frame. {@link #isReusable()} tells whether it can
+	 * be read from.
+	 */
+	boolean prepare(PoseStack.Pose pose, DiffuseLightCalculator diffuse, ModelTransformer.Context context, VertexFormat format, int instances, int modelVertices) {
+		long instanceBytes = (long) modelVertices * format.getVertexSize();
+		long bytes = instanceBytes * instances;
+
+		// normals that went through the pose can't be brought back to the origin
+		if (context.fullNormalTransform || bytes <= 0 || bytes > MAX_BYTES) {
+			delete();
+			return false;
+		}
+
+		if (bytes > capacity) {
+			long newCapacity = Math.min(Math.max(bytes, capacity * 2), MAX_BYTES);
+			long newPtr = MemoryUtil.nmemRealloc(ptr, newCapacity);
+
+			if (newPtr == MemoryUtil.NULL) {
+				delete();
+				return false;
+			}
+
+			// realloc keeps the old contents, so the entries we had are still good
+			ptr = newPtr;
+			capacity = newCapacity;
+		}
+
+		pose.pose()
+				.store(poseBuffer);
+
+		boolean outputColorDiffuse = context.outputColorDiffuse;
+		boolean same = ptr != MemoryUtil.NULL && this.instanceBytes == instanceBytes && this.diffuse == diffuse && this.outputColorDiffuse == outputColorDiffuse && format.equals(this.format);
+
+		if (!same) {
+			this.diffuse = diffuse;
+			this.outputColorDiffuse = outputColorDiffuse;
+			this.format = format;
+			this.instanceBytes = instanceBytes;
+			this.modelVertices = modelVertices;
+		}
+
+		reusable = same;
+		return true;
+	}
+
+	boolean isReusable() {
+		return reusable;
+	}
+
+	/**
+	 * @return The address of the given instance's vertices.
+	 */
+	long address(int instance) {
+		return ptr + instance * instanceBytes;
+	}
+
+	/**
+	 * Remember the vertices just written for an instance.
+	 * @param src Where the instance's vertices were written, without the pose.
+	 */
+	void store(int instance, long src) {
+		MemoryUtil.memCopy(src, address(instance), instanceBytes);
+	}
+
+	/**
+	 * Write an instance's cached vertices into the consumer with this frame's pose.
+	 */
+	void copy(int instance, DirectVertexConsumer out) {
+		long dst = out.getWritePointer();
+		out.copyVertices(address(instance), modelVertices);
+		out.transformPositions(dst, modelVertices, pose);
+	}
+
+	/**
+	 * Apply this frame's pose to vertices that were written without it.
+	 * @param src Where the instance's vertices were written.
+	 */
+	void applyPose(DirectVertexConsumer out, long src) {
+		out.transformPositions(src, modelVertices, pose);
+	}
+
+	/**
+	 * Free the cache. It will be recreated from scratch the next time it's {@link #prepare prepared}.
+	 */
+	void delete() {
+		if (ptr != MemoryUtil.NULL) {
+			MemoryUtil.nmemFree(ptr);
+			ptr = MemoryUtil.NULL;
+		}
+
+		capacity = 0;
+		instanceBytes = 0;
+		modelVertices = 0;
+		format = null;
+		diffuse = null;
+		reusable = false;
+	}
+}
@@ -10,7 +10,12 @@ public class WaitGroup {
 	}
 
 	public synchronized void done() {
-		if (--jobs == 0) {
+		done(1);
+	}
+
+	public synchronized void done(int i) {
+		jobs -= i;
+		if (jobs <= 0) {
 			notifyAll();
 		}
 	}
@@ -21,4 +26,23 @@ public class WaitGroup {
 		}
 	}
 
+	/**
+	 * Like {@link #await()}, but keeps waiting through interrupts and restores the flag afterwards.
+	 */
+	public synchronized void awaitUninterruptibly() {
+		boolean interrupted = false;
+
+		while (jobs > 0) {
+			try {
+				wait();
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
 }
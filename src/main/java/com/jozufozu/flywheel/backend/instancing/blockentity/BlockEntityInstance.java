@@ -11,9 +11,12 @@ import com.jozufozu.flywheel.core.materials.oriented.OrientedData;
 import com.jozufozu.flywheel.util.box.GridAlignedBB;
 import com.jozufozu.flywheel.util.box.ImmutableBox;
 
+import net.minecraft.client.renderer.culling.Frustum;
 import net.minecraft.core.BlockPos;
 import net.minecraft.world.level.block.entity.BlockEntity;
 import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.phys.AABB;
+import net.minecraftforge.common.extensions.IForgeBlockEntity;
 
 /**
  * The layer between a {@link BlockEntity} and the Flywheel backend.
@@ -38,6 +41,7 @@ public abstract class BlockEntityInstance<T extends BlockEntity> extends Abstrac
 	protected final BlockPos pos;
 	protected final BlockPos instancePos;
 	protected final BlockState blockState;
+	protected final AABB renderBounds;
 
 	public BlockEntityInstance(MaterialManager materialManager, T blockEntity) {
 		super(materialManager, blockEntity.getLevel());
@@ -45,6 +49,7 @@ public abstract class BlockEntityInstance<T extends BlockEntity> extends Abstrac
 		this.pos = blockEntity.getBlockPos();
 		this.blockState = blockEntity.getBlockState();
 		this.instancePos = pos.subtract(materialManager.getOriginCoordinate());
+		this.renderBounds = blockEntity.getRenderBoundingBox();
 	}
 
 	/**
@@ -84,6 +89,22 @@ public abstract class BlockEntityInstance<T extends BlockEntity> extends Abstrac
 		return materialManager.defaultCutout().material(Materials.ORIENTED);
 	}
 
+	/**
+	 * Block entities are culled using the same {@link BlockEntity#getRenderBoundingBox() render bounding box} vanilla
+	 * uses for their renderers. The box is captured when the instance is created.
+	 */
+	@Override
+	public boolean checkFrustum(Frustum frustum) {
+		return renderBounds == IForgeBlockEntity.INFINITE_EXTENT_AABB || frustum.isVisible(renderBounds);
+	}
+
+	@Override
+	public int getCullingRadius() {
+		if (renderBounds == IForgeBlockEntity.INFINITE_EXTENT_AABB) return UNBOUNDED_RADIUS;
+
+		return radiusAround(pos, renderBounds.minX, renderBounds.minY, renderBounds.minZ, renderBounds.maxX, renderBounds.maxY, renderBounds.maxZ);
+	}
+
 	@Override
 	public ImmutableBox getVolume() {
 		return GridAlignedBB.from(pos);
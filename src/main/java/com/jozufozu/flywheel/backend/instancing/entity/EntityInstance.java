@@ -8,9 +8,11 @@ import com.jozufozu.flywheel.backend.instancing.blockentity.BlockEntityInstanceM
 import com.jozufozu.flywheel.light.LightListener;
 import com.jozufozu.flywheel.light.LightProvider;
 import com.jozufozu.flywheel.light.MovingListener;
+import com.jozufozu.flywheel.mixin.FrustumAccessor;
 import com.jozufozu.flywheel.util.box.GridAlignedBB;
 import com.mojang.math.Vector3f;
 
+import net.minecraft.client.renderer.culling.Frustum;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Vec3i;
 import net.minecraft.util.Mth;
@@ -97,4 +99,25 @@ public abstract class EntityInstance<E extends Entity> extends AbstractInstance
 	public BlockPos getWorldPosition() {
 		return entity.blockPosition();
 	}
+
+	/**
+	 * Mirrors vanilla's entity culling: the entity's culling box, inflated by half a block.
+	 */
+	@Override
+	public boolean checkFrustum(Frustum frustum) {
+		if (entity.noCulling) return true;
+
+		AABB aabb = entity.getBoundingBoxForCulling();
+
+		return ((FrustumAccessor) frustum).flywheel$cubeInFrustum(aabb.minX - 0.5, aabb.minY - 0.5, aabb.minZ - 0.5, aabb.maxX + 0.5, aabb.maxY + 0.5, aabb.maxZ + 0.5);
+	}
+
+	@Override
+	public int getCullingRadius() {
+		if (entity.noCulling) return UNBOUNDED_RADIUS;
+
+		AABB aabb = entity.getBoundingBoxForCulling();
+
+		return radiusAround(entity.blockPosition(), aabb.minX, aabb.minY, aabb.minZ, aabb.maxX, aabb.maxY, aabb.maxZ) + 1;
+	}
 }
@@ -0,0 +1,82 @@
+package com.jozufozu.flywheel.backend.instancing.headless;
+
+/**
+ * Tallies the GL work the {@link HeadlessEngine} would have submitted.
+ *
+ * <p>
+ *     Counters accumulate over a frame and are moved into the "last frame" values by {@link #endFrame()}.
+ *     Everything here is only touched from the render thread.
+ * </p>
+ */
+public class GlRecorder {
+
+	private int draws;
+	private int instances;
+	private long vertices;
+	private long bytesUploaded;
+
+	private int lastDraws;
+	private int lastInstances;
+	private long lastVertices;
+	private long lastBytesUploaded;
+
+	private long totalBytesUploaded;
+	private long allocatedBytes;
+
+	public void recordDraw(int instanceCount, int vertexCount) {
+		draws++;
+		instances += instanceCount;
+		vertices += (long) instanceCount * vertexCount;
+	}
+
+	public void recordUpload(long bytes) {
+		bytesUploaded += bytes;
+		totalBytesUploaded += bytes;
+	}
+
+	public void recordAlloc(long oldSize, long newSize) {
+		allocatedBytes += newSize - oldSize;
+	}
+
+	public void endFrame() {
+		lastDraws = draws;
+		lastInstances = instances;
+		lastVertices = vertices;
+		lastBytesUploaded = bytesUploaded;
+
+		draws = 0;
+		instances = 0;
+		vertices = 0;
+		bytesUploaded = 0;
+	}
+
+	public int getDrawCount() {
+		return lastDraws;
+	}
+
+	public int getInstanceCount() {
+		return lastInstances;
+	}
+
+	public long getVertexCount() {
+		return lastVertices;
+	}
+
+	/**
+	 * @return The number of bytes written to mapped buffers last frame.
+	 */
+	public long getBytesUploaded() {
+		return lastBytesUploaded;
+	}
+
+	public long getTotalBytesUploaded() {
+		return totalBytesUploaded;
+	}
+
+	/**
+	 * @return The combined size of all live buffers.
+	 */
+	public long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+}
@@ -0,0 +1,128 @@
+package com.jozufozu.flywheel.backend.instancing.headless;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.jozufozu.flywheel.api.InstanceData;
+import com.jozufozu.flywheel.api.MaterialGroup;
+import com.jozufozu.flywheel.api.struct.Instanced;
+import com.jozufozu.flywheel.backend.RenderLayer;
+import com.jozufozu.flywheel.backend.gl.buffer.GlBufferType;
+import com.jozufozu.flywheel.backend.instancing.Engine;
+import com.jozufozu.flywheel.backend.instancing.TaskEngine;
+import com.jozufozu.flywheel.backend.instancing.instancing.InstancePool;
+import com.jozufozu.flywheel.event.RenderLayerEvent;
+import com.jozufozu.flywheel.util.FlwUtil;
+
+import net.minecraft.client.Camera;
+import net.minecraft.client.renderer.RenderType;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Vec3i;
+import net.minecraft.world.phys.Vec3;
+
+/**
+ * An engine that does all the CPU side work of the instancing engine, but never talks to GL.
+ *
+ * <p>
+ *     Instance data goes through the same {@link InstancePool}s and models are pooled exactly as they would be for the
+ *     GPU, only into off-heap buffers, then the draws and uploads that would have been made are tallied in a
+ *     {@link GlRecorder}. This isolates the
+ *     cost of Flywheel's own bookkeeping from driver and GPU time, so it can be profiled on its own.
+ * </p>
+ */
+public class HeadlessEngine implements Engine {
+
+	private final Map<RenderLayer, Map<RenderType, HeadlessMaterialGroup>> layers;
+	private final GlRecorder recorder = new GlRecorder();
+	private final Map<Instanced<? extends InstanceData>, InstancePool> pools = new HashMap<>();
+	/**
+	 * Whether the pools were uploaded for this frame.
+	 */
+	private boolean uploaded;
+
+	public HeadlessEngine() {
+		this.layers = new EnumMap<>(RenderLayer.class);
+		for (RenderLayer value : RenderLayer.values()) {
+			layers.put(value, new HashMap<>());
+		}
+	}
+
+	@Override
+	public MaterialGroup state(RenderLayer layer, RenderType state) {
+		return layers.get(layer).computeIfAbsent(state, type -> new HeadlessMaterialGroup(this, type, recorder));
+	}
+
+	/**
+	 * @return The pool every material of the given type keeps its instances in.
+	 */
+	InstancePool getPool(Instanced<? extends InstanceData> type) {
+		return pools.computeIfAbsent(type, t -> new InstancePool(t.getLayout(), new RecordingGlBuffer(GlBufferType.ARRAY_BUFFER, recorder, InstancePool.RING_SEGMENTS)));
+	}
+
+	@Override
+	public Vec3i getOriginCoordinate() {
+		return BlockPos.ZERO;
+	}
+
+	@Override
+	public void render(TaskEngine taskEngine, RenderLayerEvent event) {
+		if (!uploaded) {
+			// like the instancing engine, the first layer uploads for every layer
+			pools.values().forEach(InstancePool::upload);
+			uploaded = true;
+		}
+
+		for (HeadlessMaterialGroup group : layers.get(event.getLayer()).values()) {
+			group.render();
+		}
+	}
+
+	@Override
+	public void beginFrame(Camera info) {
+		if (uploaded) {
+			pools.values().forEach(InstancePool::doneForThisFrame);
+			uploaded = false;
+		}
+
+		recorder.endFrame();
+
+		Vec3 camera = info.getPosition();
+
+		for (Map<RenderType, HeadlessMaterialGroup> groups : layers.values()) {
+			for (HeadlessMaterialGroup group : groups.values()) {
+				group.updateLods(camera.x, camera.y, camera.z);
+			}
+		}
+	}
+
+	@Override
+	public void delete() {
+		for (Map<RenderType, HeadlessMaterialGroup> groups : layers.values()) {
+			groups.values().forEach(HeadlessMaterialGroup::delete);
+			groups.clear();
+		}
+
+		pools.values().forEach(InstancePool::delete);
+		pools.clear();
+		uploaded = false;
+	}
+
+	public GlRecorder getRecorder() {
+		return recorder;
+	}
+
+	@Override
+	public void addDebugInfo(List<String> info) {
+		info.add("Headless (no GL)");
+		info.add("Instances: " + layers.values()
+				.stream()
+				.flatMap(FlwUtil::mapValues)
+				.mapToInt(HeadlessMaterialGroup::getInstanceCount)
+				.sum());
+		info.add("Draws: " + recorder.getDrawCount() + ", Vertices: " + recorder.getVertexCount());
+		info.add(String.format("Uploaded: %.1f KiB/frame, %.1f MiB total", recorder.getBytesUploaded() / 1024.0, recorder.getTotalBytesUploaded() / (1024.0 * 1024.0)));
+		info.add(String.format("Buffers: %.1f KiB", recorder.getAllocatedBytes() / 1024.0));
+	}
+}
@@ -0,0 +1,58 @@
+package com.jozufozu.flywheel.backend.instancing.headless;
+
+import com.jozufozu.flywheel.api.InstanceData;
+import com.jozufozu.flywheel.api.struct.Instanced;
+import com.jozufozu.flywheel.backend.instancing.instancing.InstancePool;
+import com.jozufozu.flywheel.backend.instancing.instancing.PooledInstancer;
+import com.jozufozu.flywheel.backend.model.BufferedModel;
+import com.jozufozu.flywheel.backend.model.ModelPool;
+import com.jozufozu.flywheel.core.model.Model;
+
+/**
+ * Uploads through an {@link InstancePool} exactly like a
+ * {@link com.jozufozu.flywheel.backend.instancing.instancing.GPUInstancer GPUInstancer}, but the pool writes into a
+ * {@link RecordingGlBuffer} and draws are recorded instead of issued.
+ */
+public class HeadlessInstancer<D extends InstanceData> extends PooledInstancer<D> {
+
+	private final GlRecorder recorder;
+
+	private final BufferedModel model;
+	private boolean deleted;
+
+	public HeadlessInstancer(Instanced<D> type, Model model, ModelPool models, InstancePool pool, GlRecorder recorder) {
+		super(type, model, pool);
+		this.recorder = recorder;
+
+		// nothing to set up, there is no vao
+		this.model = models.alloc(model, arenaModel -> {
+		});
+
+		addToPool();
+	}
+
+	/**
+	 * Record a draw if there's anything to draw. Changes must already be uploaded to the pool.
+	 */
+	public void render() {
+		if (deleted) return;
+
+		if (glInstanceCount > 0 && model.valid()) {
+			recorder.recordDraw(glInstanceCount, model.getVertexCount());
+		}
+	}
+
+	@Override
+	protected boolean invalid() {
+		return deleted;
+	}
+
+	public void delete() {
+		if (deleted) return;
+
+		deleted = true;
+
+		model.delete();
+		removeFromPool();
+	}
+}
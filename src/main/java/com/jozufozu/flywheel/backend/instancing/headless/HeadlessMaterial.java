@@ -0,0 +1,67 @@
+package com.jozufozu.flywheel.backend.instancing.headless;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import com.jozufozu.flywheel.api.InstanceData;
+import com.jozufozu.flywheel.api.Instancer;
+import com.jozufozu.flywheel.api.LodInstancer;
+import com.jozufozu.flywheel.api.LodLevel;
+import com.jozufozu.flywheel.api.Material;
+import com.jozufozu.flywheel.api.struct.Instanced;
+import com.jozufozu.flywheel.backend.instancing.LodGroup;
+import com.jozufozu.flywheel.backend.instancing.instancing.InstancePool;
+import com.jozufozu.flywheel.backend.model.ModelPool;
+import com.jozufozu.flywheel.core.model.Model;
+
+public class HeadlessMaterial<D extends InstanceData> implements Material<D> {
+
+	protected final Map<Object, HeadlessInstancer<D>> models = new HashMap<>();
+	protected final Map<Object, LodGroup<D>> lods = new HashMap<>();
+	protected final Instanced<D> type;
+	protected final ModelPool pool;
+	protected final InstancePool instances;
+	protected final GlRecorder recorder;
+
+	public HeadlessMaterial(Instanced<D> type, ModelPool pool, InstancePool instances, GlRecorder recorder) {
+		this.type = type;
+		this.pool = pool;
+		this.instances = instances;
+		this.recorder = recorder;
+	}
+
+	@Override
+	public Instancer<D> model(Object key, Supplier<Model> modelSupplier) {
+		return models.computeIfAbsent(key, $ -> new HeadlessInstancer<>(type, modelSupplier.get(), pool, instances, recorder));
+	}
+
+	@Override
+	public LodInstancer<D> lod(Object key, LodLevel... levels) {
+		return lods.computeIfAbsent(key, $ -> new LodGroup<>(this, key, levels));
+	}
+
+	/**
+	 * Move instances between levels of detail for the camera's new position.
+	 */
+	public void updateLods(double camX, double camY, double camZ) {
+		for (LodGroup<D> lod : lods.values()) {
+			lod.update(camX, camY, camZ);
+		}
+	}
+
+	public int getInstanceCount() {
+		return models.values().stream().mapToInt(HeadlessInstancer::getInstanceCount).sum();
+	}
+
+	public void delete() {
+		models.values().forEach(HeadlessInstancer::delete);
+		models.clear();
+		lods.clear();
+	}
+
+	public Collection<HeadlessInstancer<D>> getAllInstancers() {
+		return models.values();
+	}
+}
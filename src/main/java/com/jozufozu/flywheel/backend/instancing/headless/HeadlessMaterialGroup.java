@@ -0,0 +1,77 @@
+package com.jozufozu.flywheel.backend.instancing.headless;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.jozufozu.flywheel.api.InstanceData;
+import com.jozufozu.flywheel.api.MaterialGroup;
+import com.jozufozu.flywheel.api.struct.Instanced;
+import com.jozufozu.flywheel.api.struct.StructType;
+import com.jozufozu.flywheel.backend.gl.buffer.GlBufferType;
+import com.jozufozu.flywheel.backend.instancing.FrameProfiler;
+import com.jozufozu.flywheel.backend.model.ModelPool;
+import com.jozufozu.flywheel.core.Formats;
+import com.jozufozu.flywheel.mixin.RenderStateShardAccessor;
+
+import net.minecraft.client.renderer.RenderType;
+
+public class HeadlessMaterialGroup implements MaterialGroup {
+
+	private final HeadlessEngine owner;
+	private final String profilerName;
+	private final GlRecorder recorder;
+	private final ModelPool pool;
+
+	private final Map<Instanced<? extends InstanceData>, HeadlessMaterial<?>> materials = new HashMap<>();
+
+	public HeadlessMaterialGroup(HeadlessEngine owner, RenderType type, GlRecorder recorder) {
+		this.owner = owner;
+		this.profilerName = "group " + ((RenderStateShardAccessor) type).flywheel$getName();
+		this.recorder = recorder;
+		this.pool = new ModelPool(Formats.POS_TEX_NORMAL, 2048, new RecordingGlBuffer(GlBufferType.ARRAY_BUFFER, recorder));
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <D extends InstanceData> HeadlessMaterial<D> material(StructType<D> type) {
+		if (type instanceof Instanced<D> instanced) {
+			return (HeadlessMaterial<D>) materials.computeIfAbsent(instanced, t -> new HeadlessMaterial<>(t, pool, owner.getPool(t), recorder));
+		} else {
+			throw new ClassCastException("Cannot use type '" + type + "' with the headless engine.");
+		}
+	}
+
+	public void render() {
+		FrameProfiler.push(profilerName);
+
+		pool.flush();
+
+		for (HeadlessMaterial<?> material : materials.values()) {
+			for (HeadlessInstancer<?> instancer : material.getAllInstancers()) {
+				instancer.render();
+			}
+		}
+
+		FrameProfiler.pop();
+	}
+
+	public int getInstanceCount() {
+		return materials.values()
+				.stream()
+				.mapToInt(HeadlessMaterial::getInstanceCount)
+				.sum();
+	}
+
+	public void updateLods(double camX, double camY, double camZ) {
+		for (HeadlessMaterial<?> material : materials.values()) {
+			material.updateLods(camX, camY, camZ);
+		}
+	}
+
+	public void delete() {
+		materials.values()
+				.forEach(HeadlessMaterial::delete);
+		materials.clear();
+		pool.delete();
+	}
+}
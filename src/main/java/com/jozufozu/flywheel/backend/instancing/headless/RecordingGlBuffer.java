@@ -0,0 +1,198 @@
+package com.jozufozu.flywheel.backend.instancing.headless;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.lwjgl.system.MemoryUtil;
+
+import com.jozufozu.flywheel.backend.gl.buffer.GlBuffer;
+import com.jozufozu.flywheel.backend.gl.buffer.GlBufferType;
+import com.jozufozu.flywheel.backend.gl.buffer.Mappable;
+import com.jozufozu.flywheel.backend.gl.buffer.MappedBuffer;
+
+/**
+ * A buffer that lives entirely in client memory and never touches GL.
+ *
+ * <p>
+ *     It behaves like a {@link com.jozufozu.flywheel.backend.gl.buffer.PersistentGlBuffer PersistentGlBuffer}: the
+ *     storage is mapped for its whole life, split into a ring of segments that moves on the first time it's mapped in
+ *     a frame, and flushing it is free. Allocations are reported to a {@link GlRecorder}, and so is every byte that
+ *     would have to reach the GPU: whole mapped ranges, or only the flushed parts of ranges mapped with
+ *     {@link #getBufferExplicit}.
+ * </p>
+ */
+public class RecordingGlBuffer extends GlBuffer implements Mappable {
+
+	/**
+	 * Fake handles, so {@link com.jozufozu.flywheel.backend.gl.GlObject} bookkeeping still works.
+	 */
+	private static final AtomicInteger nextHandle = new AtomicInteger(1);
+
+	private final GlRecorder recorder;
+	private final int segments;
+
+	private ByteBuffer storage;
+	private View[] views;
+	private long size;
+
+	/**
+	 * The segment being written and drawn from.
+	 */
+	private int current;
+	/**
+	 * Whether {@link #current} was already moved on this frame.
+	 */
+	private boolean advanced;
+	/**
+	 * Whether the last mapping only counts what gets flushed.
+	 */
+	private boolean explicit;
+
+	public RecordingGlBuffer(GlBufferType type, GlRecorder recorder) {
+		this(type, recorder, 1);
+	}
+
+	/**
+	 * @param segments How many segments to split the storage into, like the persistent buffer this stands in for.
+	 */
+	public RecordingGlBuffer(GlBufferType type, GlRecorder recorder, int segments) {
+		super(type);
+		this.recorder = recorder;
+		this.segments = segments;
+	}
+
+	@Override
+	protected void _create() {
+		setHandle(nextHandle.getAndIncrement());
+	}
+
+	@Override
+	protected void alloc(long size) {
+		long oldSize = storage == null ? 0 : storage.capacity();
+
+		if (storage != null) {
+			MemoryUtil.memFree(storage);
+		}
+
+		this.size = size;
+		long total = size * segments;
+
+		storage = MemoryUtil.memCalloc((int) total);
+		views = new View[segments];
+		for (int i = 0; i < segments; i++) {
+			ByteBuffer segment = storage.slice((int) (i * size), (int) size)
+					.order(ByteOrder.nativeOrder());
+			views[i] = new View(segment, size);
+		}
+
+		// whoever grew the buffer is about to fill the first segment
+		current = 0;
+		advanced = true;
+
+		recorder.recordAlloc(oldSize, total);
+	}
+
+	@Override
+	public void upload(ByteBuffer directBuffer) {
+		int size = directBuffer.remaining();
+
+		ensureCapacity(size);
+
+		MemoryUtil.memCopy(MemoryUtil.memAddress(directBuffer), MemoryUtil.memAddress(storage), size);
+
+		recorder.recordUpload(size);
+	}
+
+	@Override
+	public void copyWithin(long from, long to, long length) {
+		long address = MemoryUtil.memAddress(storage);
+		MemoryUtil.memCopy(address + from, address + to, length);
+	}
+
+	@Override
+	public MappedBuffer getBuffer(long offset, long length) {
+		// we can't see which bytes actually get written, so count the whole range like a driver would have to
+		recorder.recordUpload(length);
+
+		return map(offset, false);
+	}
+
+	@Override
+	public MappedBuffer getBufferExplicit(long offset, long length) {
+		return map(offset, true);
+	}
+
+	private MappedBuffer map(long offset, boolean explicit) {
+		if (!advanced) {
+			current = (current + 1) % segments;
+			advanced = true;
+		}
+
+		this.explicit = explicit;
+
+		View view = views[current];
+		view.position((int) offset);
+		return view;
+	}
+
+	@Override
+	public long getSegmentOffset() {
+		return current * size;
+	}
+
+	@Override
+	public int getSegmentCount() {
+		return segments;
+	}
+
+	@Override
+	public void doneForThisFrame() {
+		advanced = false;
+	}
+
+	@Override
+	public void bind() {
+	}
+
+	@Override
+	public void unbind() {
+	}
+
+	@Override
+	protected void deleteInternal(int handle) {
+		if (storage != null) {
+			recorder.recordAlloc(storage.capacity(), 0);
+			MemoryUtil.memFree(storage);
+			storage = null;
+			views = null;
+		}
+	}
+
+	@Override
+	public GlBufferType getType() {
+		return type;
+	}
+
+	@Override
+	public boolean isPersistent() {
+		return true;
+	}
+
+	/**
+	 * One segment, counting what's flushed instead of telling GL about it.
+	 */
+	private class View extends MappedBuffer {
+
+		private View(ByteBuffer segment, long size) {
+			super(RecordingGlBuffer.this, segment, 0, size);
+		}
+
+		@Override
+		public void flushRange(long offset, long length) {
+			if (explicit) {
+				recorder.recordUpload(length);
+			}
+		}
+	}
+}
@@ -0,0 +1,123 @@
+package com.jozufozu.flywheel.backend.instancing.hybrid;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.jozufozu.flywheel.api.MaterialGroup;
+import com.jozufozu.flywheel.backend.RenderLayer;
+import com.jozufozu.flywheel.backend.gl.GlStateTracker;
+import com.jozufozu.flywheel.backend.instancing.TaskEngine;
+import com.jozufozu.flywheel.backend.instancing.batching.BatchedMaterialGroup;
+import com.jozufozu.flywheel.backend.instancing.batching.BatchingEngine;
+import com.jozufozu.flywheel.backend.instancing.instancing.InstancedMaterialGroup;
+import com.jozufozu.flywheel.backend.instancing.instancing.InstancingEngine;
+import com.jozufozu.flywheel.core.compile.ProgramCompiler;
+import com.jozufozu.flywheel.core.shader.WorldProgram;
+import com.jozufozu.flywheel.event.RenderLayerEvent;
+import com.jozufozu.flywheel.util.FlwUtil;
+import com.mojang.blaze3d.vertex.PoseStack;
+
+import net.minecraft.client.Camera;
+import net.minecraft.client.renderer.RenderType;
+import net.minecraft.world.phys.Vec3;
+
+/**
+ * Draws models with many copies with GPU instancing and models with few copies with batching.
+ *
+ * <p>
+ *     Both halves share the instancing engine's origin coordinate, so instances don't care which one they end up in.
+ *     Each layer's batched transforms run on the task engine while the instanced half is drawn.
+ * </p>
+ *
+ * @see HybridInstancer
+ */
+public class HybridEngine<P extends WorldProgram> extends InstancingEngine<P> {
+
+	private final BatchingEngine batching = new BatchingEngine();
+
+	private final Map<RenderLayer, Map<RenderType, HybridMaterialGroup>> hybridLayers;
+
+	/**
+	 * The pose batched vertices are transformed with, which also carries them from the origin coordinate into the world.
+	 */
+	private final PoseStack batchingStack = new PoseStack();
+
+	public HybridEngine(ProgramCompiler<P> context) {
+		super(context, InstancedMaterialGroup::new, false);
+
+		this.hybridLayers = new EnumMap<>(RenderLayer.class);
+		for (RenderLayer value : RenderLayer.values()) {
+			hybridLayers.put(value, new HashMap<>());
+		}
+	}
+
+	@Override
+	public MaterialGroup state(RenderLayer layer, RenderType type) {
+		return hybridLayers.get(layer).computeIfAbsent(type, t -> new HybridMaterialGroup((InstancedMaterialGroup<?>) super.state(layer, t), (BatchedMaterialGroup) batching.state(layer, t)));
+	}
+
+	@Override
+	public void render(TaskEngine taskEngine, RenderLayerEvent event) {
+		PoseStack.Pose from = event.stack.last();
+		PoseStack.Pose to = batchingStack.last();
+		to.pose().load(from.pose());
+		to.normal().load(from.normal());
+		batchingStack.translate(originCoordinate.getX(), originCoordinate.getY(), originCoordinate.getZ());
+
+		batching.submit(taskEngine, event, batchingStack);
+
+		// BufferUploader thinks its own buffers are still bound when the batched half draws
+		GlStateTracker.State restoreState = GlStateTracker.getRestoreState();
+		super.render(taskEngine, event);
+		restoreState.restore();
+
+		batching.draw(taskEngine, event, batchingStack);
+	}
+
+	@Override
+	public void beginFrame(Camera info) {
+		super.beginFrame(info);
+		batching.beginFrame(info);
+
+		Vec3 camera = info.getPosition();
+
+		for (Map<RenderType, HybridMaterialGroup> groups : hybridLayers.values()) {
+			for (HybridMaterialGroup group : groups.values()) {
+				group.update(camera.x, camera.y, camera.z);
+			}
+		}
+	}
+
+	@Override
+	protected void clearInstances() {
+		super.clearInstances();
+
+		for (Map<RenderType, HybridMaterialGroup> groups : hybridLayers.values()) {
+			groups.values().forEach(HybridMaterialGroup::clear);
+		}
+	}
+
+	@Override
+	public void delete() {
+		super.delete();
+		batching.delete();
+	}
+
+	@Override
+	public void addDebugInfo(List<String> info) {
+		info.add("Hybrid");
+		info.add("Models: " + hybridLayers.values()
+				.stream()
+				.flatMap(FlwUtil::mapValues)
+				.mapToInt(HybridMaterialGroup::getInstancedModelCount)
+				.sum() + " instanced of " + hybridLayers.values()
+				.stream()
+				.flatMap(FlwUtil::mapValues)
+				.mapToInt(HybridMaterialGroup::getModelCount)
+				.sum());
+		super.addDebugInfo(info);
+		batching.addDebugInfo(info);
+	}
+}
@@ -0,0 +1,123 @@
+package com.jozufozu.flywheel.backend.instancing.hybrid;
+
+import java.util.function.Supplier;
+
+import javax.annotation.Nullable;
+
+import com.jozufozu.flywheel.api.InstanceData;
+import com.jozufozu.flywheel.api.Instancer;
+import com.jozufozu.flywheel.backend.instancing.AbstractInstancer;
+import com.jozufozu.flywheel.backend.instancing.batching.BatchedMaterial;
+import com.jozufozu.flywheel.backend.instancing.instancing.InstancedMaterial;
+import com.jozufozu.flywheel.core.model.Model;
+import com.jozufozu.flywheel.util.Lazy;
+
+/**
+ * An instancer that keeps its copies wherever they're cheapest to draw.
+ *
+ * <p>
+ *     A model with only a few copies isn't worth a draw call, a vertex array and an instance buffer of its own, so it
+ *     starts out batched and gets transformed on the CPU along with everything else. Once it has {@link #TO_GPU}
+ *     copies they all move to a GPU instancer, and they only move back once there are {@link #TO_CPU} or fewer, so
+ *     a model whose count hovers around one threshold doesn't move every frame.
+ * </p>
+ */
+public class HybridInstancer<D extends InstanceData> implements Instancer<D> {
+
+	/**
+	 * How many copies a batched model needs before it moves to the GPU.
+	 */
+	public static final int TO_GPU = 32;
+	/**
+	 * How few copies an instanced model needs before it moves back to the CPU.
+	 */
+	public static final int TO_CPU = 8;
+
+	private final Object key;
+	private final Lazy<Model> model;
+	private final InstancedMaterial<D> gpuMaterial;
+
+	private final AbstractInstancer<D> cpu;
+	/**
+	 * Created the first time this model moves to the GPU, most models never do.
+	 */
+	@Nullable
+	private AbstractInstancer<D> gpu;
+	/**
+	 * The instancer that owns every copy.
+	 */
+	private AbstractInstancer<D> active;
+
+	HybridInstancer(Object key, Supplier<Model> modelSupplier, BatchedMaterial<D> cpuMaterial, InstancedMaterial<D> gpuMaterial) {
+		this.key = key;
+		// both halves are made from the same model, only build it once
+		this.model = Lazy.of(modelSupplier::get);
+		this.gpuMaterial = gpuMaterial;
+
+		cpu = (AbstractInstancer<D>) cpuMaterial.model(key, model::get);
+		active = cpu;
+	}
+
+	@Override
+	public D createInstance() {
+		return active.createInstance();
+	}
+
+	@Override
+	public void stealInstance(D inOther) {
+		if (owns(inOther)) return;
+
+		active.stealInstance(inOther);
+	}
+
+	@Override
+	public boolean owns(InstanceData instance) {
+		Instancer<?> owner = instance.getOwner();
+		return owner == cpu || owner == gpu;
+	}
+
+	@Override
+	public void notifyDirty() {
+		// noop, our copies belong to the instancers we wrap
+	}
+
+	@Override
+	public void notifyRemoval() {
+		// noop, our copies belong to the instancers we wrap
+	}
+
+	/**
+	 * Move every copy to the other side if their count crossed its threshold.
+	 * Must not be called while copies are being created.
+	 */
+	void update() {
+		int count = active.getInstanceCount();
+
+		if (active == cpu) {
+			if (count >= TO_GPU) {
+				moveTo(getGpu());
+			}
+		} else if (count <= TO_CPU) {
+			moveTo(cpu);
+		}
+	}
+
+	/**
+	 * @return {@code true} if our copies are currently drawn with GPU instancing.
+	 */
+	public boolean isInstanced() {
+		return active != cpu;
+	}
+
+	private void moveTo(AbstractInstancer<D> to) {
+		active.transferAllTo(to);
+		active = to;
+	}
+
+	private AbstractInstancer<D> getGpu() {
+		if (gpu == null) {
+			gpu = (AbstractInstancer<D>) gpuMaterial.model(key, model::get);
+		}
+		return gpu;
+	}
+}
@@ -0,0 +1,74 @@
+package com.jozufozu.flywheel.backend.instancing.hybrid;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import com.jozufozu.flywheel.api.InstanceData;
+import com.jozufozu.flywheel.api.Instancer;
+import com.jozufozu.flywheel.api.LodInstancer;
+import com.jozufozu.flywheel.api.LodLevel;
+import com.jozufozu.flywheel.api.Material;
+import com.jozufozu.flywheel.backend.instancing.LodGroup;
+import com.jozufozu.flywheel.backend.instancing.batching.BatchedMaterial;
+import com.jozufozu.flywheel.backend.instancing.instancing.InstancedMaterial;
+import com.jozufozu.flywheel.core.model.Model;
+
+/**
+ * A material for types that can be both batched and instanced. Each model gets a {@link HybridInstancer}.
+ */
+public class HybridMaterial<D extends InstanceData> implements Material<D> {
+
+	protected final Map<Object, HybridInstancer<D>> models = new HashMap<>();
+	protected final Map<Object, LodGroup<D>> lods = new HashMap<>();
+
+	private final BatchedMaterial<D> cpuMaterial;
+	private final InstancedMaterial<D> gpuMaterial;
+
+	public HybridMaterial(BatchedMaterial<D> cpuMaterial, InstancedMaterial<D> gpuMaterial) {
+		this.cpuMaterial = cpuMaterial;
+		this.gpuMaterial = gpuMaterial;
+	}
+
+	@Override
+	public Instancer<D> model(Object key, Supplier<Model> modelSupplier) {
+		return models.computeIfAbsent(key, $ -> new HybridInstancer<>(key, modelSupplier, cpuMaterial, gpuMaterial));
+	}
+
+	@Override
+	public LodInstancer<D> lod(Object key, LodLevel... levels) {
+		return lods.computeIfAbsent(key, $ -> new LodGroup<>(this, key, levels));
+	}
+
+	/**
+	 * Move instances between levels of detail, then move models whose instance count crossed a threshold.
+	 */
+	public void update(double camX, double camY, double camZ) {
+		for (LodGroup<D> lod : lods.values()) {
+			lod.update(camX, camY, camZ);
+		}
+
+		for (HybridInstancer<D> instancer : models.values()) {
+			instancer.update();
+		}
+	}
+
+	public int getInstancedModelCount() {
+		return (int) models.values()
+				.stream()
+				.filter(HybridInstancer::isInstanced)
+				.count();
+	}
+
+	public int getModelCount() {
+		return models.size();
+	}
+
+	/**
+	 * Forget all instances. The instancers we wrap are cleared by their own groups.
+	 */
+	public void clear() {
+		lods.values()
+				.forEach(LodGroup::clear);
+	}
+}
@@ -0,0 +1,74 @@
+package com.jozufozu.flywheel.backend.instancing.hybrid;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.jozufozu.flywheel.api.InstanceData;
+import com.jozufozu.flywheel.api.Material;
+import com.jozufozu.flywheel.api.MaterialGroup;
+import com.jozufozu.flywheel.api.struct.Batched;
+import com.jozufozu.flywheel.api.struct.Instanced;
+import com.jozufozu.flywheel.api.struct.StructType;
+import com.jozufozu.flywheel.backend.instancing.batching.BatchedMaterialGroup;
+import com.jozufozu.flywheel.backend.instancing.instancing.InstancedMaterialGroup;
+
+/**
+ * Pairs the instanced and batched groups for one layer and RenderType.
+ *
+ * <p>
+ *     Types that can be both get a {@link HybridMaterial}. Types that can only be one of them are handed straight to
+ *     that side's group.
+ * </p>
+ */
+public class HybridMaterialGroup implements MaterialGroup {
+
+	private final InstancedMaterialGroup<?> instanced;
+	private final BatchedMaterialGroup batched;
+
+	private final Map<StructType<? extends InstanceData>, HybridMaterial<?>> materials = new HashMap<>();
+
+	public HybridMaterialGroup(InstancedMaterialGroup<?> instanced, BatchedMaterialGroup batched) {
+		this.instanced = instanced;
+		this.batched = batched;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <D extends InstanceData> Material<D> material(StructType<D> type) {
+		if (type instanceof Instanced<D> && type instanceof Batched<D>) {
+			return (HybridMaterial<D>) materials.computeIfAbsent(type, t -> new HybridMaterial<>(batched.material(type), instanced.material(type)));
+		} else if (type instanceof Instanced<D>) {
+			return instanced.material(type);
+		} else {
+			return batched.material(type);
+		}
+	}
+
+	public void update(double camX, double camY, double camZ) {
+		for (HybridMaterial<?> material : materials.values()) {
+			material.update(camX, camY, camZ);
+		}
+	}
+
+	public int getInstancedModelCount() {
+		return materials.values()
+				.stream()
+				.mapToInt(HybridMaterial::getInstancedModelCount)
+				.sum();
+	}
+
+	public int getModelCount() {
+		return materials.values()
+				.stream()
+				.mapToInt(HybridMaterial::getModelCount)
+				.sum();
+	}
+
+	/**
+	 * Clear the batched side and our own materials. The instanced side is cleared by its engine.
+	 */
+	public void clear() {
+		batched.clear();
+		materials.values().forEach(HybridMaterial::clear);
+	}
+}
@@ -1,65 +1,94 @@
 package com.jozufozu.flywheel.backend.instancing.instancing;
 
-import org.lwjgl.system.MemoryUtil;
+import javax.annotation.Nullable;
 
-import com.jozufozu.flywheel.Flywheel;
 import com.jozufozu.flywheel.api.InstanceData;
 import com.jozufozu.flywheel.api.struct.Instanced;
-import com.jozufozu.flywheel.api.struct.StructWriter;
 import com.jozufozu.flywheel.backend.gl.GlVertexArray;
-import com.jozufozu.flywheel.backend.gl.buffer.GlBuffer;
-import com.jozufozu.flywheel.backend.gl.buffer.GlBufferType;
-import com.jozufozu.flywheel.backend.gl.buffer.MappedBuffer;
 import com.jozufozu.flywheel.backend.gl.versioned.GlCompat;
-import com.jozufozu.flywheel.backend.instancing.AbstractInstancer;
 import com.jozufozu.flywheel.backend.model.BufferedModel;
 import com.jozufozu.flywheel.backend.model.ModelAllocator;
-import com.jozufozu.flywheel.core.layout.BufferLayout;
 import com.jozufozu.flywheel.core.model.Model;
+import com.jozufozu.flywheel.repack.joml.FrustumIntersection;
+import com.jozufozu.flywheel.util.box.FloatBox;
+import com.mojang.math.Vector4f;
 
-public class GPUInstancer<D extends InstanceData> extends AbstractInstancer<D> {
+import it.unimi.dsi.fastutil.ints.IntList;
+
+public class GPUInstancer<D extends InstanceData> extends PooledInstancer<D> {
 
 	private final ModelAllocator modelAllocator;
-	private final BufferLayout instanceFormat;
-	private final Instanced<D> instancedType;
+	private final Vector4f boundingSphere;
+
+	/**
+	 * A conservative box around every instance, relative to the origin coordinate. Only grows until an instance is
+	 * removed, then it's rebuilt from scratch.
+	 */
+	private final FloatBox bounds = new FloatBox();
+	private boolean cullable = true;
 
 	private BufferedModel model;
 	private GlVertexArray vao;
-	private GlBuffer instanceVBO;
-	private int glInstanceCount = 0;
+	/**
+	 * Where in the pool our vertex array reads instances from.
+	 */
+	private long boundOffset = -1;
+	private int boundGeneration;
 	private boolean deleted;
 	private boolean initialized;
 
-	protected boolean anyToUpdate;
-
-	public GPUInstancer(Instanced<D> type, Model model, ModelAllocator modelAllocator) {
-		super(type::create, model);
+	GPUInstancer(Instanced<D> type, Model model, ModelAllocator modelAllocator, InstancePool pool) {
+		super(type, model, pool);
 		this.modelAllocator = modelAllocator;
-		this.instanceFormat = type.getLayout();
-		instancedType = type;
+		boundingSphere = model.getBoundingSphere();
 	}
 
-	@Override
-	public void notifyDirty() {
-		anyToUpdate = true;
-	}
-
-	public void render() {
-		if (invalid()) return;
+	/**
+	 * Draw all instances, unless none of them can be seen. Changes must already be uploaded to the pool.
+	 *
+	 * @param frustum The frustum to cull against, or {@code null} to always draw.
+	 * @return {@code true} if a draw call was issued.
+	 */
+	public boolean render(@Nullable FrustumIntersection frustum) {
+		if (!isVisible(frustum)) return false;
 
 		vao.bind();
 
-		renderSetup();
-
-		if (glInstanceCount > 0) {
+		if (GlCompat.getInstance().baseInstanceSupported()) {
+			// the attributes stay at the start of the pool, the segment and our range are picked by the base instance
+			bindInstanceAttributes(0);
+			model.drawInstances(glInstanceCount, pool.getSegmentBaseInstance() + getBaseInstance());
+		} else {
+			// without base instances, the attributes have to be moved to our range every time the ring advances
+			bindInstanceAttributes(pool.getSegmentOffset() + (long) getBaseInstance() * instanceFormat.getStride());
 			model.drawInstances(glInstanceCount);
 		}
 
-		// persistent mapping sync point
-		instanceVBO.doneForThisFrame();
+		return true;
 	}
 
-	private boolean invalid() {
+	private void bindInstanceAttributes(long offset) {
+		if (offset != boundOffset || pool.getGeneration() != boundGeneration) {
+			pool.bindAttributes(vao, model.getAttributeCount(), offset);
+			boundOffset = offset;
+			boundGeneration = pool.getGeneration();
+		}
+	}
+
+	/**
+	 * @param frustum The frustum to cull against, or {@code null} to skip culling.
+	 * @return {@code true} if there's anything to draw and some of it might be seen.
+	 */
+	boolean isVisible(@Nullable FrustumIntersection frustum) {
+		return !invalid() && glInstanceCount > 0 && (frustum == null || !cullable || bounds.intersects(frustum));
+	}
+
+	BufferedModel getModel() {
+		return model;
+	}
+
+	@Override
+	protected boolean invalid() {
 		return deleted || model == null;
 	}
 
@@ -79,18 +108,13 @@ public class GPUInstancer<D extends InstanceData> extends AbstractInstancer<D> {
 		vao.bind();
 		vao.enableArrays(model.getAttributeCount() + instanceFormat.getAttributeCount());
 
-		instanceVBO = GlBuffer.requestPersistent(GlBufferType.ARRAY_BUFFER);
-		instanceVBO.setGrowthMargin(instanceFormat.getStride() * 16);
+		addToPool();
 	}
 
 	public boolean isInitialized() {
 		return initialized;
 	}
 
-	public boolean isEmpty() {
-		return !anyToUpdate && !anyToRemove && glInstanceCount == 0;
-	}
-
 	/**
 	 * Free acquired resources. All other Instancer methods are undefined behavior after calling delete.
 	 */
@@ -100,105 +124,49 @@ public class GPUInstancer<D extends InstanceData> extends AbstractInstancer<D> {
 		deleted = true;
 
 		model.delete();
+		removeFromPool();
 
-		instanceVBO.delete();
 		vao.delete();
 	}
 
-	protected void renderSetup() {
-		if (anyToRemove) {
-			removeDeletedInstances();
-		}
-
-		instanceVBO.bind();
-		if (!realloc()) {
-
-			if (anyToRemove) {
-				clearBufferTail();
-			}
-
-			if (anyToUpdate) {
-				updateBuffer();
-			}
-
-			glInstanceCount = data.size();
-		}
-
-		instanceVBO.unbind();
-
-		anyToRemove = anyToUpdate = false;
-	}
-
-	private void clearBufferTail() {
-		int size = data.size();
-		final int offset = size * instanceFormat.getStride();
-		final long length = instanceVBO.getCapacity() - offset;
-		if (length > 0) {
-			try (MappedBuffer buf = instanceVBO.getBuffer(offset, length)) {
-				MemoryUtil.memSet(MemoryUtil.memAddress(buf.unwrap()), 0, length);
-			} catch (Exception e) {
-				Flywheel.LOGGER.error("Error clearing buffer tail:", e);
-			}
+	@Override
+	protected void instancesChanged(boolean removed, IntList changed) {
+		if (removed) {
+			// the box can't shrink around what's left any other way
+			rebuildBounds();
+		} else if (cullable) {
+			growBounds(changed);
 		}
 	}
 
-	private void updateBuffer() {
-		final int size = data.size();
-
-		if (size <= 0) return;
-
-		try (MappedBuffer mapped = instanceVBO.getBuffer()) {
-
-			final StructWriter<D> writer = instancedType.getWriter(mapped);
-
-			boolean sequential = true;
-			for (int i = 0; i < size; i++) {
-				final D element = data.get(i);
-				if (element.checkDirtyAndClear()) {
-					if (!sequential) {
-						writer.seek(i);
-					}
-					writer.write(element);
-					sequential = true;
-				} else {
-					sequential = false;
+	/**
+	 * Grow the bounds to fit the instances that were added or changed. Wherever they were before stays covered.
+	 */
+	private void growBounds(IntList changed) {
+		for (int r = 0; r < changed.size(); r += 2) {
+			int end = changed.getInt(r + 1);
+
+			for (int i = changed.getInt(r); i < end; i++) {
+				if (!instancedType.expandBounds(data.get(i), boundingSphere, bounds)) {
+					cullable = false;
+					return;
 				}
 			}
-		} catch (Exception e) {
-			Flywheel.LOGGER.error("Error updating GPUInstancer:", e);
 		}
 	}
 
-	private boolean realloc() {
-		int size = this.data.size();
-		int stride = instanceFormat.getStride();
-		int requiredSize = size * stride;
-		if (instanceVBO.ensureCapacity(requiredSize)) {
-
-			try (MappedBuffer buffer = instanceVBO.getBuffer()) {
-				StructWriter<D> writer = instancedType.getWriter(buffer);
-				for (D datum : data) {
-					writer.write(datum);
-				}
-			} catch (Exception e) {
-				Flywheel.LOGGER.error("Error reallocating GPUInstancer:", e);
+	/**
+	 * Recompute the bounds of all instances.
+	 */
+	private void rebuildBounds() {
+		bounds.clear();
+		cullable = true;
+
+		for (D datum : data) {
+			if (!instancedType.expandBounds(datum, boundingSphere, bounds)) {
+				cullable = false;
+				return;
 			}
-
-			glInstanceCount = size;
-
-			bindInstanceAttributes();
-
-			return true;
-		}
-		return false;
-	}
-
-	private void bindInstanceAttributes() {
-		int attributeBaseIndex = model.getAttributeCount();
-		vao.bindAttributes(attributeBaseIndex, instanceFormat);
-
-		for (int i = 0; i < instanceFormat.getAttributeCount(); i++) {
-            GlCompat.getInstance().instancedArrays.vertexAttribDivisor(attributeBaseIndex + i, 1);
 		}
 	}
 }
@@ -0,0 +1,155 @@
+package com.jozufozu.flywheel.backend.instancing.instancing;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import org.lwjgl.system.MemoryUtil;
+
+import com.jozufozu.flywheel.backend.gl.GlPrimitive;
+import com.jozufozu.flywheel.backend.gl.GlVertexArray;
+import com.jozufozu.flywheel.backend.gl.buffer.GlBuffer;
+import com.jozufozu.flywheel.backend.gl.buffer.GlBufferType;
+import com.jozufozu.flywheel.backend.gl.buffer.GlBufferUsage;
+import com.jozufozu.flywheel.backend.gl.buffer.MappedGlBuffer;
+import com.jozufozu.flywheel.backend.gl.versioned.GlCompat;
+import com.jozufozu.flywheel.backend.model.ElementBuffer;
+import com.jozufozu.flywheel.backend.model.ModelPool;
+import com.jozufozu.flywheel.repack.joml.FrustumIntersection;
+
+/**
+ * Draws every instancer of one material with a single {@code glMultiDrawElementsIndirect} per index buffer.
+ *
+ * <p>
+ *     Instances are read straight out of the {@link InstancePool} for the material's type, each draw starting at its
+ *     instancer's base instance in the pool's current segment. Models are read straight out of the {@link ModelPool},
+ *     so one vertex array covers everything in the material.
+ * </p>
+ */
+class IndirectDraws {
+
+	/**
+	 * The size of a {@code DrawElementsIndirectCommand}: count, instanceCount, firstIndex, baseVertex, baseInstance.
+	 */
+	private static final int COMMAND_SIZE = 20;
+
+	private static final Comparator<GPUInstancer<?>> BY_INDEX_BUFFER = Comparator.comparingInt(instancer -> getEBO(instancer).getBuffer()
+			.handle());
+
+	private final InstancePool instances;
+
+	private final GlVertexArray vao;
+	private final GlBuffer commands;
+	private ByteBuffer commandData;
+	private final int modelAttributes;
+	/**
+	 * The pool's generation when our vertex array was last pointed at it.
+	 */
+	private int boundGeneration = -1;
+
+	/**
+	 * The instancers drawn this frame, reused between frames.
+	 */
+	private final List<GPUInstancer<?>> visible = new ArrayList<>();
+
+	IndirectDraws(InstancePool instances, ModelPool pool) {
+		this.instances = instances;
+
+		vao = new GlVertexArray();
+		commands = new MappedGlBuffer(GlBufferType.DRAW_INDIRECT_BUFFER, GlBufferUsage.STREAM_DRAW);
+		commandData = MemoryUtil.memAlloc(COMMAND_SIZE * 64);
+
+		modelAttributes = pool.getAttributeCount();
+
+		vao.bind();
+		vao.enableArrays(modelAttributes + instances.getFormat().getAttributeCount());
+		pool.setupState(vao);
+	}
+
+	/**
+	 * Draw all instancers of a material. A program must already be bound, and the pool must be uploaded.
+	 *
+	 * @param frustum The frustum to cull against, or {@code null} to draw everything.
+	 * @return The number of instancers that were drawn.
+	 */
+	int render(Collection<? extends GPUInstancer<?>> instancers, @Nullable FrustumIntersection frustum) {
+		visible.clear();
+		for (GPUInstancer<?> instancer : instancers) {
+			if (instancer.isVisible(frustum)) {
+				visible.add(instancer);
+			}
+		}
+
+		if (visible.isEmpty()) return 0;
+
+		// commands using the same index buffer have to be next to each other to be drawn together
+		visible.sort(BY_INDEX_BUFFER);
+
+		writeCommands();
+
+		vao.bind();
+
+		// the segment is picked by each command's base instance, so the attributes only move when the pool grows
+		if (instances.getGeneration() != boundGeneration) {
+			instances.bindAttributes(vao, modelAttributes, 0);
+			boundGeneration = instances.getGeneration();
+		}
+
+		commands.bind();
+		commands.upload(commandData);
+
+		int first = 0;
+		while (first < visible.size()) {
+			ElementBuffer ebo = getEBO(visible.get(first));
+
+			int end = first + 1;
+			while (end < visible.size() && getEBO(visible.get(end)).getBuffer() == ebo.getBuffer()) {
+				end++;
+			}
+
+			ebo.bind();
+			GlCompat.getInstance().multiDrawIndirect.multiDrawElementsIndirect(GlPrimitive.TRIANGLES.glEnum, ebo.eboIndexType.getGlEnum(), (long) first * COMMAND_SIZE, end - first, COMMAND_SIZE);
+
+			first = end;
+		}
+
+		commands.unbind();
+
+		return visible.size();
+	}
+
+	private void writeCommands() {
+		int bytes = visible.size() * COMMAND_SIZE;
+		if (commandData.capacity() < bytes) {
+			commandData = MemoryUtil.memRealloc(commandData, Math.max(bytes, commandData.capacity() * 2));
+		}
+
+		int segmentBase = instances.getSegmentBaseInstance();
+
+		commandData.clear();
+		for (GPUInstancer<?> instancer : visible) {
+			ModelPool.PooledModel model = (ModelPool.PooledModel) instancer.getModel();
+
+			commandData.putInt(getEBO(instancer).elementCount);
+			commandData.putInt(instancer.getBufferedInstanceCount());
+			commandData.putInt(0);
+			commandData.putInt(model.getFirstVertex());
+			commandData.putInt(segmentBase + instancer.getBaseInstance());
+		}
+		commandData.flip();
+	}
+
+	private static ElementBuffer getEBO(GPUInstancer<?> instancer) {
+		return ((ModelPool.PooledModel) instancer.getModel()).getEBO();
+	}
+
+	void delete() {
+		vao.delete();
+		commands.delete();
+		MemoryUtil.memFree(commandData);
+	}
+}
@@ -0,0 +1,230 @@
+package com.jozufozu.flywheel.backend.instancing.instancing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.jozufozu.flywheel.Flywheel;
+import com.jozufozu.flywheel.backend.gl.GlVertexArray;
+import com.jozufozu.flywheel.backend.gl.buffer.GlBuffer;
+import com.jozufozu.flywheel.backend.gl.buffer.GlBufferType;
+import com.jozufozu.flywheel.backend.gl.buffer.MappedBuffer;
+import com.jozufozu.flywheel.backend.gl.versioned.GlCompat;
+import com.jozufozu.flywheel.backend.instancing.FrameProfiler;
+import com.jozufozu.flywheel.core.layout.BufferLayout;
+import com.jozufozu.flywheel.util.RangeAllocator;
+
+import it.unimi.dsi.fastutil.ints.IntList;
+
+/**
+ * The instance data of every instancer of one {@link com.jozufozu.flywheel.api.struct.Instanced Instanced} type in an
+ * engine, across all of its layers and RenderTypes, sub-allocated out of one buffer.
+ *
+ * <p>
+ *     Each instancer gets a range of slots with room to grow and is drawn starting at the range's base instance.
+ *     Everything is uploaded through one mapping per frame, and the whole pool moves through the segments of a
+ *     persistent buffer at once, so a type with hundreds of models still only has one buffer to grow and one fence
+ *     per segment to wait on.
+ * </p>
+ *
+ * @see com.jozufozu.flywheel.backend.model.ModelPool
+ */
+public class InstancePool {
+
+	/**
+	 * The fewest slots an instancer is given.
+	 */
+	static final int MIN_CAPACITY = 16;
+	/**
+	 * One segment being drawn, and two for the frames the GPU may still be working on.
+	 */
+	public static final int RING_SEGMENTS = 3;
+
+	private final BufferLayout format;
+	private final GlBuffer buffer;
+	private final RangeAllocator slots = new RangeAllocator();
+	private final List<PooledInstancer<?>> instancers = new ArrayList<>();
+
+	/**
+	 * Which of their catch-up sets every instancer writes from next.
+	 */
+	private int nextCatchUp;
+	/**
+	 * Bumped whenever the buffer grows, since persistent buffers get a new name when they do.
+	 */
+	private int generation;
+
+	InstancePool(BufferLayout format) {
+		this(format, GlBuffer.requestPersistent(GlBufferType.ARRAY_BUFFER, RING_SEGMENTS));
+	}
+
+	/**
+	 * @param buffer Where to keep the instances, split into as many segments as it should be ringed through.
+	 */
+	public InstancePool(BufferLayout format, GlBuffer buffer) {
+		this.format = format;
+		this.buffer = buffer;
+
+		buffer.setGrowthMargin(format.getStride() * 256);
+	}
+
+	/**
+	 * @return How many sets of changes an instancer has to keep for the segments it isn't drawn from.
+	 */
+	int getCatchUpCount() {
+		return buffer.getSegmentCount() - 1;
+	}
+
+	/**
+	 * Start uploading an instancer's instances. Called once it's initialized.
+	 */
+	void add(PooledInstancer<?> instancer) {
+		instancers.add(instancer);
+	}
+
+	/**
+	 * Stop uploading a deleted instancer. Its slots have to be freed separately.
+	 */
+	void remove(PooledInstancer<?> instancer) {
+		instancers.remove(instancer);
+	}
+
+	/**
+	 * @return The first slot of a range of {@code capacity} slots.
+	 */
+	int alloc(int capacity) {
+		return slots.alloc(capacity);
+	}
+
+	void free(int base, int capacity) {
+		slots.free(base, capacity);
+	}
+
+	/**
+	 * @return How many slots a range for {@code count} instances gets, leaving room to grow.
+	 */
+	static int capacityFor(int count) {
+		return Math.max(MIN_CAPACITY, Integer.highestOneBit(count) << 1);
+	}
+
+	/**
+	 * Upload the changes of every instancer, all into the same segment. Must be called before anything is drawn from
+	 * the pool, and followed by {@link #doneForThisFrame()} once the draws have been issued.
+	 */
+	public void upload() {
+		FrameProfiler.push("instanceUpload");
+
+		boolean anyToWrite = false;
+		for (PooledInstancer<?> instancer : instancers) {
+			anyToWrite |= instancer.prepare();
+		}
+
+		buffer.bind();
+		if (buffer.ensureCapacity((long) slots.getEnd() * format.getStride())) {
+			// growing throws away every segment
+			for (PooledInstancer<?> instancer : instancers) {
+				instancer.markAllStale();
+			}
+			nextCatchUp = 0;
+			generation++;
+			anyToWrite = true;
+		}
+
+		if (anyToWrite) {
+			write();
+		}
+		buffer.unbind();
+
+		FrameProfiler.pop();
+	}
+
+	/**
+	 * Write every instancer's changes and bring its range in the segment we move on to up to date.
+	 */
+	private void write() {
+		long first = Long.MAX_VALUE;
+		long last = 0;
+		for (PooledInstancer<?> instancer : instancers) {
+			IntList ranges = instancer.collectWrites(nextCatchUp);
+
+			if (!ranges.isEmpty()) {
+				int base = instancer.getBaseInstance();
+				first = Math.min(first, base + ranges.getInt(0));
+				last = Math.max(last, base + ranges.getInt(ranges.size() - 1));
+			}
+		}
+
+		// only happens when the buffer grew and everything is empty, the segment we're on is as good as any
+		if (first >= last) return;
+
+		long stride = format.getStride();
+		try (MappedBuffer mapped = buffer.getBufferExplicit(first * stride, (last - first) * stride)) {
+			for (PooledInstancer<?> instancer : instancers) {
+				instancer.write(mapped);
+			}
+		} catch (Exception e) {
+			Flywheel.LOGGER.error("Error uploading instances:", e);
+		}
+
+		for (PooledInstancer<?> instancer : instancers) {
+			instancer.finishWrite();
+		}
+
+		if (getCatchUpCount() > 0) {
+			nextCatchUp = (nextCatchUp + 1) % getCatchUpCount();
+		}
+	}
+
+	/**
+	 * Point instance attributes of the bound vertex array at the pool.
+	 *
+	 * @param offset The byte offset of the first instance the attributes should read.
+	 */
+	void bindAttributes(GlVertexArray vao, int startIndex, long offset) {
+		buffer.bind();
+		vao.bindAttributes(startIndex, format, (int) offset);
+
+		for (int i = 0; i < format.getAttributeCount(); i++) {
+			GlCompat.getInstance().instancedArrays.vertexAttribDivisor(startIndex + i, 1);
+		}
+		buffer.unbind();
+	}
+
+	/**
+	 * @return The byte offset of the segment everything is drawn from this frame.
+	 */
+	long getSegmentOffset() {
+		return buffer.getSegmentOffset();
+	}
+
+	/**
+	 * @return The base instance of the first slot of the current segment. Segments are always a whole number of
+	 * instances long, since the buffer only ever grows by whole instances.
+	 */
+	int getSegmentBaseInstance() {
+		return (int) (buffer.getSegmentOffset() / format.getStride());
+	}
+
+	/**
+	 * @return A number that changes whenever vertex arrays have to point their attributes at the pool again.
+	 */
+	int getGeneration() {
+		return generation;
+	}
+
+	BufferLayout getFormat() {
+		return format;
+	}
+
+	/**
+	 * Call once every draw reading what was uploaded has been issued.
+	 */
+	public void doneForThisFrame() {
+		buffer.doneForThisFrame();
+	}
+
+	public void delete() {
+		buffer.delete();
+		slots.clear();
+		instancers.clear();
+	}
+}
@@ -7,12 +7,19 @@ import java.util.List;
 import java.util.Map;
 import java.util.function.Supplier;
 
+import javax.annotation.Nullable;
+
 import com.jozufozu.flywheel.api.InstanceData;
 import com.jozufozu.flywheel.api.Instancer;
+import com.jozufozu.flywheel.api.LodInstancer;
+import com.jozufozu.flywheel.api.LodLevel;
 import com.jozufozu.flywheel.api.Material;
 import com.jozufozu.flywheel.api.struct.Instanced;
+import com.jozufozu.flywheel.backend.instancing.LodGroup;
 import com.jozufozu.flywheel.backend.model.ModelAllocator;
+import com.jozufozu.flywheel.backend.model.ModelPool;
 import com.jozufozu.flywheel.core.model.Model;
+import com.jozufozu.flywheel.repack.joml.FrustumIntersection;
 
 /**
  * A collection of Instancers that all have the same format.
@@ -22,12 +29,24 @@ public class InstancedMaterial<D extends InstanceData> implements Material<D> {
 
 	protected final ModelAllocator allocator;
 	protected final Map<Object, GPUInstancer<D>> models = new HashMap<>();
+	protected final Map<Object, LodGroup<D>> lods = new HashMap<>();
 	protected final Instanced<D> type;
 	protected final List<GPUInstancer<D>> uninitialized = new ArrayList<>();
+	/**
+	 * Where all of our instancers keep their instances, shared with every other material of our type in the engine.
+	 */
+	protected final InstancePool instances;
+
+	/**
+	 * Created the first time this material is drawn indirectly.
+	 */
+	@Nullable
+	private IndirectDraws indirect;
 
-	public InstancedMaterial(Instanced<D> type, ModelAllocator allocator) {
+	public InstancedMaterial(Instanced<D> type, ModelAllocator allocator, InstancePool instances) {
 		this.type = type;
 		this.allocator = allocator;
+		this.instances = instances;
 	}
 
 	/**
@@ -40,12 +59,41 @@ public class InstancedMaterial<D extends InstanceData> implements Material<D> {
 	@Override
 	public Instancer<D> model(Object key, Supplier<Model> modelSupplier) {
 		return models.computeIfAbsent(key, $ -> {
-			GPUInstancer<D> instancer = new GPUInstancer<>(type, modelSupplier.get(), allocator);
+			GPUInstancer<D> instancer = new GPUInstancer<>(type, modelSupplier.get(), allocator, instances);
 			uninitialized.add(instancer);
 			return instancer;
 		});
 	}
 
+	@Override
+	public LodInstancer<D> lod(Object key, LodLevel... levels) {
+		return lods.computeIfAbsent(key, $ -> new LodGroup<>(this, key, levels));
+	}
+
+	/**
+	 * Move instances between levels of detail for the camera's new position.
+	 */
+	public void updateLods(double camX, double camY, double camZ) {
+		for (LodGroup<D> lod : lods.values()) {
+			lod.update(camX, camY, camZ);
+		}
+	}
+
+	/**
+	 * Draw all instancers at once. A program must already be bound, and changes must be uploaded.
+	 *
+	 * @param pool The pool all of our models were allocated from.
+	 * @param frustum The frustum to cull against, or {@code null} to draw everything.
+	 * @return The number of instancers that were drawn.
+	 */
+	public int renderIndirect(ModelPool pool, @Nullable FrustumIntersection frustum) {
+		if (indirect == null) {
+			indirect = new IndirectDraws(instances, pool);
+		}
+
+		return indirect.render(models.values(), frustum);
+	}
+
 	public int getInstanceCount() {
 		return models.values().stream().mapToInt(GPUInstancer::getInstanceCount).sum();
 	}
@@ -63,6 +111,11 @@ public class InstancedMaterial<D extends InstanceData> implements Material<D> {
 	public void delete() {
 		models.values().forEach(GPUInstancer::delete);
 		models.clear();
+		if (indirect != null) {
+			indirect.delete();
+			indirect = null;
+		}
+		lods.clear();
 	}
 
 	/**
@@ -71,6 +124,8 @@ public class InstancedMaterial<D extends InstanceData> implements Material<D> {
 	public void clear() {
 		models.values()
 				.forEach(GPUInstancer::clear);
+		lods.values()
+				.forEach(LodGroup::clear);
 	}
 
 	public Collection<GPUInstancer<D>> getAllInstancers() {
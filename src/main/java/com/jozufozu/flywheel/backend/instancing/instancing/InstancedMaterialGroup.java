@@ -1,20 +1,26 @@
 package com.jozufozu.flywheel.backend.instancing.instancing;
 
+import java.nio.FloatBuffer;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.lwjgl.system.MemoryStack;
+
 import com.jozufozu.flywheel.api.InstanceData;
 import com.jozufozu.flywheel.api.MaterialGroup;
 import com.jozufozu.flywheel.api.struct.Instanced;
 import com.jozufozu.flywheel.api.struct.StructType;
 import com.jozufozu.flywheel.backend.RenderLayer;
 import com.jozufozu.flywheel.backend.gl.versioned.GlCompat;
+import com.jozufozu.flywheel.backend.instancing.FrameProfiler;
 import com.jozufozu.flywheel.backend.model.FallbackAllocator;
 import com.jozufozu.flywheel.backend.model.ModelAllocator;
 import com.jozufozu.flywheel.backend.model.ModelPool;
 import com.jozufozu.flywheel.core.Formats;
 import com.jozufozu.flywheel.core.compile.ProgramContext;
 import com.jozufozu.flywheel.core.shader.WorldProgram;
+import com.jozufozu.flywheel.mixin.RenderStateShardAccessor;
+import com.jozufozu.flywheel.repack.joml.FrustumIntersection;
 import com.jozufozu.flywheel.util.Textures;
 import com.mojang.math.Matrix4f;
 
@@ -30,16 +36,25 @@ public class InstancedMaterialGroup<P extends WorldProgram> implements MaterialG
 
 	protected final InstancingEngine<P> owner;
 	protected final RenderType type;
+	/**
+	 * The name this group is profiled under.
+	 */
+	private final String profilerName;
 
 	private final Map<Instanced<? extends InstanceData>, InstancedMaterial<?>> materials = new HashMap<>();
 	private final ModelAllocator allocator;
+	private final FrustumIntersection frustum = new FrustumIntersection();
+	private final com.jozufozu.flywheel.repack.joml.Matrix4f frustumMatrix = new com.jozufozu.flywheel.repack.joml.Matrix4f();
 
 	private int vertexCount;
 	private int instanceCount;
+	private int drawnInstancers;
+	private int culledInstancers;
 
 	public InstancedMaterialGroup(InstancingEngine<P> owner, RenderType type) {
 		this.owner = owner;
 		this.type = type;
+		this.profilerName = "group " + ((RenderStateShardAccessor) type).flywheel$getName();
         if (GlCompat.getInstance()
                 .onAMDWindows()) {
 			this.allocator = FallbackAllocator.INSTANCE;
@@ -52,7 +67,7 @@ public class InstancedMaterialGroup<P extends WorldProgram> implements MaterialG
 	@Override
 	public <D extends InstanceData> InstancedMaterial<D> material(StructType<D> type) {
 		if (type instanceof Instanced<D> instanced) {
-			return (InstancedMaterial<D>) materials.computeIfAbsent(instanced, t -> new InstancedMaterial<>(t, allocator));
+			return (InstancedMaterial<D>) materials.computeIfAbsent(instanced, t -> new InstancedMaterial<>(t, allocator, owner.getPool(t)));
 		} else {
 			throw new ClassCastException("Cannot use type '" + type + "' with GPU instancing.");
 		}
@@ -74,29 +89,59 @@ public class InstancedMaterialGroup<P extends WorldProgram> implements MaterialG
 		return vertexCount;
 	}
 
+	/**
+	 * Get the number of instancers that issued a draw call last frame.
+	 * @return The instancer count.
+	 */
+	public int getDrawnInstancerCount() {
+		return drawnInstancers;
+	}
+
+	/**
+	 * Get the number of instancers that were skipped last frame because they were out of view.
+	 * @return The instancer count.
+	 */
+	public int getCulledInstancerCount() {
+		return culledInstancers;
+	}
+
 	public void render(Matrix4f viewProjection, double camX, double camY, double camZ, RenderLayer layer) {
+		FrameProfiler.push(profilerName);
 		type.setupRenderState();
 		Textures.bindActiveTextures();
 		renderAll(viewProjection, camX, camY, camZ, layer);
 		type.clearRenderState();
+		FrameProfiler.pop();
 	}
 
-	protected void renderAll(Matrix4f viewProjection, double camX, double camY, double camZ, RenderLayer layer) {
-		// initialize all uninitialized instancers...
+	/**
+	 * Initialize all uninitialized instancers, so their instance pools can upload them.
+	 */
+	public void initInstancers() {
 		for (InstancedMaterial<?> material : materials.values()) {
 			for (GPUInstancer<?> instancer : material.uninitialized) {
 				instancer.init();
 			}
 			material.uninitialized.clear();
 		}
+	}
 
+	protected void renderAll(Matrix4f viewProjection, double camX, double camY, double camZ, RenderLayer layer) {
 		if (allocator instanceof ModelPool pool) {
-			// ...and then flush the model arena in case anything was marked for upload
+			// flush the model arena in case anything was marked for upload
 			pool.flush();
 		}
 
 		vertexCount = 0;
 		instanceCount = 0;
+		drawnInstancers = 0;
+		culledInstancers = 0;
+
+		FrustumIntersection frustum = shouldCull() ? updateFrustum(viewProjection) : null;
+
+		// indirect draws read every model out of the pool, the fallback allocator gives each its own buffer
+		ModelPool indirectPool = allocator instanceof ModelPool pool && GlCompat.getInstance()
+				.multiDrawIndirectSupported() ? pool : null;
 
 		for (Map.Entry<Instanced<? extends InstanceData>, InstancedMaterial<?>> entry : materials.entrySet()) {
 			InstancedMaterial<?> material = entry.getValue();
@@ -111,14 +156,56 @@ public class InstancedMaterialGroup<P extends WorldProgram> implements MaterialG
 
 			setup(program);
 
-			for (GPUInstancer<?> instancer : material.getAllInstancers()) {
-				instancer.render();
-				vertexCount += instancer.getVertexCount();
-				instanceCount += instancer.getInstanceCount();
+			if (indirectPool != null) {
+				int drawn = material.renderIndirect(indirectPool, frustum);
+				int nonEmpty = 0;
+
+				for (GPUInstancer<?> instancer : material.getAllInstancers()) {
+					if (instancer.getInstanceCount() > 0) {
+						nonEmpty++;
+					}
+					vertexCount += instancer.getVertexCount();
+					instanceCount += instancer.getInstanceCount();
+				}
+
+				drawnInstancers += drawn;
+				culledInstancers += nonEmpty - drawn;
+			} else {
+				for (GPUInstancer<?> instancer : material.getAllInstancers()) {
+					if (instancer.render(frustum)) {
+						drawnInstancers++;
+					} else if (instancer.getInstanceCount() > 0) {
+						culledInstancers++;
+					}
+					vertexCount += instancer.getVertexCount();
+					instanceCount += instancer.getInstanceCount();
+				}
 			}
 		}
 	}
 
+	/**
+	 * Should instancers in this group be culled against the view frustum?
+	 *
+	 * <p>
+	 *     Instancer bounds are computed from instance data alone. Groups whose programs apply an extra transform
+	 *     on top of the view projection, which is what engines that ignore the origin coordinate do, must not cull.
+	 * </p>
+	 */
+	protected boolean shouldCull() {
+		return !owner.ignoreOriginCoordinate;
+	}
+
+	private FrustumIntersection updateFrustum(Matrix4f viewProjection) {
+		try (MemoryStack stack = MemoryStack.stackPush()) {
+			FloatBuffer buffer = stack.mallocFloat(16);
+			viewProjection.store(buffer);
+			frustumMatrix.set(buffer);
+		}
+
+		return frustum.set(frustumMatrix);
+	}
+
 	public void setup(P program) {
 
 	}
@@ -127,6 +214,12 @@ public class InstancedMaterialGroup<P extends WorldProgram> implements MaterialG
 		materials.values().forEach(InstancedMaterial::clear);
 	}
 
+	public void updateLods(double camX, double camY, double camZ) {
+		for (InstancedMaterial<?> material : materials.values()) {
+			material.updateLods(camX, camY, camZ);
+		}
+	}
+
 	public void delete() {
 		materials.values()
 				.forEach(InstancedMaterial::delete);
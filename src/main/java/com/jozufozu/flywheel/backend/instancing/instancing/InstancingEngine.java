@@ -8,7 +8,9 @@ import java.util.stream.Stream;
 
 import javax.annotation.Nullable;
 
+import com.jozufozu.flywheel.api.InstanceData;
 import com.jozufozu.flywheel.api.MaterialGroup;
+import com.jozufozu.flywheel.api.struct.Instanced;
 import com.jozufozu.flywheel.backend.RenderLayer;
 import com.jozufozu.flywheel.backend.instancing.Engine;
 import com.jozufozu.flywheel.backend.instancing.TaskEngine;
@@ -24,6 +26,7 @@ import net.minecraft.client.renderer.RenderType;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Vec3i;
 import net.minecraft.util.Mth;
+import net.minecraft.world.phys.Vec3;
 
 public class InstancingEngine<P extends WorldProgram> implements Engine {
 
@@ -37,6 +40,15 @@ public class InstancingEngine<P extends WorldProgram> implements Engine {
 
 	protected final Map<RenderLayer, Map<RenderType, InstancedMaterialGroup<P>>> layers;
 
+	/**
+	 * The instances of each type, for the materials of every layer and RenderType.
+	 */
+	private final Map<Instanced<? extends InstanceData>, InstancePool> pools = new HashMap<>();
+	/**
+	 * Whether the pools were uploaded for this frame and are waiting for their fences.
+	 */
+	private boolean uploaded;
+
 	private final WeakHashSet<OriginShiftListener> listeners;
 
 	public static <P extends WorldProgram> Builder<P> builder(ProgramCompiler<P> context) {
@@ -68,6 +80,13 @@ public class InstancingEngine<P extends WorldProgram> implements Engine {
 		return layers.get(layer).computeIfAbsent(type, t -> groupFactory.create(this, t));
 	}
 
+	/**
+	 * @return The pool every material of the given type keeps its instances in.
+	 */
+	InstancePool getPool(Instanced<? extends InstanceData> type) {
+		return pools.computeIfAbsent(type, t -> new InstancePool(t.getLayout()));
+	}
+
 	/**
 	 * Render every model for every material.
 	 */
@@ -91,7 +110,30 @@ public class InstancingEngine<P extends WorldProgram> implements Engine {
 			viewProjection = event.viewProjection;
 		}
 
+		if (!uploaded) {
+			// the first layer uploads for every layer, so each pool uploads everything that changed in one go
+			getGroupsToRender(null).forEach(InstancedMaterialGroup::initInstancers);
+			pools.values().forEach(InstancePool::upload);
+			uploaded = true;
+		}
+
 		getGroupsToRender(event.getLayer()).forEach(group -> group.render(viewProjection, camX, camY, camZ, event.getLayer()));
+
+		if (event.getLayer() == null) {
+			// CrumblingRenderer changes its instances between calls and never begins a frame, every call is a pass
+			endFrame();
+		}
+	}
+
+	/**
+	 * Post the fences for everything drawn since the pools were uploaded.
+	 */
+	private void endFrame() {
+		if (uploaded) {
+			// persistent mapping sync point
+			pools.values().forEach(InstancePool::doneForThisFrame);
+			uploaded = false;
+		}
 	}
 
 	private Stream<InstancedMaterialGroup<P>> getGroupsToRender(@Nullable RenderLayer layer) {
@@ -113,6 +155,10 @@ public class InstancingEngine<P extends WorldProgram> implements Engine {
 
 			groups.values().forEach(InstancedMaterialGroup::delete);
 		}
+
+		pools.values().forEach(InstancePool::delete);
+		pools.clear();
+		uploaded = false;
 	}
 
 	@Override
@@ -131,6 +177,9 @@ public class InstancingEngine<P extends WorldProgram> implements Engine {
 	 */
 	@Override
 	public void beginFrame(Camera info) {
+		// every layer of last frame has been drawn by now
+		endFrame();
+
 		int cX = Mth.floor(info.getPosition().x);
 		int cY = Mth.floor(info.getPosition().y);
 		int cZ = Mth.floor(info.getPosition().z);
@@ -143,12 +192,28 @@ public class InstancingEngine<P extends WorldProgram> implements Engine {
 
 			originCoordinate = new BlockPos(cX, cY, cZ);
 
-			for (Map<RenderType, InstancedMaterialGroup<P>> groups : layers.values()) {
-				groups.values().forEach(InstancedMaterialGroup::clear);
-			}
+			clearInstances();
 
 			listeners.forEach(OriginShiftListener::onOriginShift);
 		}
+
+		Vec3 camera = info.getPosition();
+
+		for (Map<RenderType, InstancedMaterialGroup<P>> groups : layers.values()) {
+			for (InstancedMaterialGroup<P> group : groups.values()) {
+				group.updateLods(camera.x, camera.y, camera.z);
+			}
+		}
+	}
+
+	/**
+	 * Throw away every instance, because the origin moved out from under them. Called before the listeners are told
+	 * to create them again.
+	 */
+	protected void clearInstances() {
+		for (Map<RenderType, InstancedMaterialGroup<P>> groups : layers.values()) {
+			groups.values().forEach(InstancedMaterialGroup::clear);
+		}
 	}
 
 	@Override
@@ -156,6 +221,8 @@ public class InstancingEngine<P extends WorldProgram> implements Engine {
 		info.add("GL33 Instanced Arrays");
 		info.add("Instances: " + getGroupsToRender(null).mapToInt(InstancedMaterialGroup::getInstanceCount).sum());
 		info.add("Vertices: " + getGroupsToRender(null).mapToInt(InstancedMaterialGroup::getVertexCount).sum());
+		info.add("Instancers: " + getGroupsToRender(null).mapToInt(InstancedMaterialGroup::getDrawnInstancerCount).sum() + " drawn, "
+				+ getGroupsToRender(null).mapToInt(InstancedMaterialGroup::getCulledInstancerCount).sum() + " culled");
 		info.add("Origin: " + originCoordinate.getX() + ", " + originCoordinate.getY() + ", " + originCoordinate.getZ());
 	}
 
@@ -0,0 +1,240 @@
+package com.jozufozu.flywheel.backend.instancing.instancing;
+
+import javax.annotation.Nullable;
+
+import com.jozufozu.flywheel.api.InstanceData;
+import com.jozufozu.flywheel.api.struct.Instanced;
+import com.jozufozu.flywheel.api.struct.StructWriter;
+import com.jozufozu.flywheel.backend.gl.buffer.MappedBuffer;
+import com.jozufozu.flywheel.backend.instancing.AbstractInstancer;
+import com.jozufozu.flywheel.backend.instancing.DirtyRanges;
+import com.jozufozu.flywheel.core.layout.BufferLayout;
+import com.jozufozu.flywheel.core.model.Model;
+
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.ints.IntLists;
+
+/**
+ * An instancer that keeps its instances in a range of an {@link InstancePool}.
+ *
+ * <p>
+ *     This is everything the pool needs to upload an instancer: which slots changed, and which segments of the pool
+ *     still have to hear about them. How the range gets drawn is up to subclasses.
+ * </p>
+ */
+public abstract class PooledInstancer<D extends InstanceData> extends AbstractInstancer<D> {
+
+	/**
+	 * How many clean instances can sit between two dirty ones before they're uploaded as separate ranges.
+	 */
+	private static final int MAX_RANGE_GAP = 8;
+
+	protected final InstancePool pool;
+	protected final BufferLayout instanceFormat;
+	protected final Instanced<D> instancedType;
+
+	protected int glInstanceCount = 0;
+	/**
+	 * Our range of slots in the pool, empty until there's something to put in it.
+	 */
+	private int baseInstance;
+	private int capacity;
+
+	protected boolean anyToUpdate;
+	private final DirtyRanges dirtyRanges = new DirtyRanges();
+	/**
+	 * What the next uploads have to bring our range up to date with, one per segment of the pool that isn't being
+	 * drawn from.
+	 */
+	private final DirtyRanges[] catchUp;
+	/**
+	 * The set being written and its ranges, between {@link #collectWrites} and {@link #finishWrite}.
+	 */
+	@Nullable
+	private DirtyRanges writing;
+	private IntList pendingWrites = IntLists.EMPTY_LIST;
+
+	protected PooledInstancer(Instanced<D> type, Model model, InstancePool pool) {
+		super(type::create, model);
+		this.pool = pool;
+		this.instanceFormat = type.getLayout();
+		instancedType = type;
+
+		catchUp = new DirtyRanges[pool.getCatchUpCount()];
+		for (int i = 0; i < catchUp.length; i++) {
+			catchUp[i] = new DirtyRanges();
+		}
+	}
+
+	@Override
+	public void notifyDirty() {
+		dirtyRanges.markAll();
+		anyToUpdate = true;
+	}
+
+	@Override
+	public void notifyDirty(InstanceData instance) {
+		dirtyRanges.add(instance.getIndex());
+		anyToUpdate = true;
+	}
+
+	/**
+	 * @return {@code true} if this instancer can't be drawn, and its instances shouldn't be uploaded.
+	 */
+	protected abstract boolean invalid();
+
+	/**
+	 * Called while preparing an upload, once deleted instances are gone.
+	 *
+	 * @param removed Whether any instances were removed, moving others into their slots.
+	 * @param changed Start and end pairs of the slots that were added to or changed. Only valid during the call.
+	 */
+	protected void instancesChanged(boolean removed, IntList changed) {
+	}
+
+	/**
+	 * Start uploading our instances. Call once we're ready to be drawn.
+	 */
+	protected final void addToPool() {
+		pool.add(this);
+	}
+
+	/**
+	 * Stop uploading our instances and give back our range.
+	 */
+	protected final void removeFromPool() {
+		pool.remove(this);
+		pool.free(baseInstance, capacity);
+		capacity = 0;
+	}
+
+	/**
+	 * @return The number of instances in the pool.
+	 */
+	public int getBufferedInstanceCount() {
+		return glInstanceCount;
+	}
+
+	/**
+	 * @return The slot in the pool our first instance is in.
+	 */
+	public int getBaseInstance() {
+		return baseInstance;
+	}
+
+	public boolean isEmpty() {
+		return !anyToUpdate && !anyToRemove && glInstanceCount == 0;
+	}
+
+	/**
+	 * Remove deleted instances and make sure our range in the pool fits the rest.
+	 *
+	 * @return {@code true} if anything that's drawn has to be uploaded.
+	 */
+	boolean prepare() {
+		// most instancers don't change from one frame to the next
+		if (invalid() || !anyToUpdate && !anyToRemove) return false;
+
+		boolean removed = anyToRemove;
+		if (removed) {
+			removeDeletedInstances();
+		}
+
+		int size = data.size();
+		if (size > capacity || capacity > InstancePool.MIN_CAPACITY && size <= capacity / 4) {
+			move(size);
+		}
+
+		glInstanceCount = size;
+
+		anyToRemove = anyToUpdate = false;
+
+		// whatever lies past the last instance is never drawn, so removals alone don't need an upload
+		IntList changed = dirtyRanges.coalesce(size, 0);
+		instancesChanged(removed, changed);
+
+		if (changed.isEmpty()) {
+			dirtyRanges.clear();
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Trade our range for one that fits {@code count} instances with room to grow.
+	 */
+	private void move(int count) {
+		pool.free(baseInstance, capacity);
+
+		capacity = InstancePool.capacityFor(count);
+		baseInstance = pool.alloc(capacity);
+
+		markAllStale();
+	}
+
+	/**
+	 * Mark our whole range as out of date in every segment of the pool.
+	 */
+	void markAllStale() {
+		dirtyRanges.markAll();
+		for (DirtyRanges later : catchUp) {
+			later.markAll();
+		}
+	}
+
+	/**
+	 * Gather what has to be written to the segment the pool moves on to: what changed since the last upload, and
+	 * everything written to the other segments since this one was last written.
+	 *
+	 * @param head The catch-up set for that segment.
+	 * @return Start and end pairs relative to our base instance, valid until {@link #finishWrite()}.
+	 */
+	IntList collectWrites(int head) {
+		if (invalid()) return IntLists.EMPTY_LIST;
+
+		writing = dirtyRanges;
+		if (catchUp.length > 0) {
+			writing = catchUp[head];
+			writing.addAll(dirtyRanges);
+		}
+
+		pendingWrites = writing.coalesce(glInstanceCount, MAX_RANGE_GAP);
+		return pendingWrites;
+	}
+
+	void write(MappedBuffer mapped) {
+		if (pendingWrites.isEmpty()) return;
+
+		long stride = instanceFormat.getStride();
+		final StructWriter<D> writer = instancedType.getWriter(mapped);
+
+		for (int r = 0; r < pendingWrites.size(); r += 2) {
+			int start = pendingWrites.getInt(r);
+			int end = pendingWrites.getInt(r + 1);
+
+			writer.seek(baseInstance + start);
+			for (int i = start; i < end; i++) {
+				final D element = data.get(i);
+				element.checkDirtyAndClear();
+				writer.write(element);
+			}
+
+			mapped.flushRange((baseInstance + start) * stride, (end - start) * stride);
+		}
+	}
+
+	void finishWrite() {
+		if (writing == null) return;
+
+		writing.clear();
+
+		// the segments written after this one need our changes too
+		for (DirtyRanges later : catchUp) {
+			later.addAll(dirtyRanges);
+		}
+		dirtyRanges.clear();
+
+		writing = null;
+		pendingWrites = IntLists.EMPTY_LIST;
+	}
+}
@@ -22,6 +22,18 @@ public interface BufferedModel {
 	 */
 	void drawInstances(int instanceCount);
 
+	/**
+	 * Like {@link #drawInstances(int)}, but reading instance attributes from {@code baseInstance} onwards.
+	 * Only call this with a base other than 0 if {@link com.jozufozu.flywheel.backend.gl.versioned.GlCompat#baseInstanceSupported()}.
+	 */
+	default void drawInstances(int instanceCount, int baseInstance) {
+		if (baseInstance != 0) {
+			throw new UnsupportedOperationException(getClass().getSimpleName() + " can't draw from a base instance");
+		}
+
+		drawInstances(instanceCount);
+	}
+
 	boolean isDeleted();
 
 	void delete();
@@ -3,6 +3,8 @@ package com.jozufozu.flywheel.backend.model;
 import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 
+import javax.annotation.Nullable;
+
 import org.lwjgl.system.MemoryUtil;
 
 import com.jozufozu.flywheel.util.RenderMath;
@@ -27,6 +29,12 @@ public class DirectVertexConsumer implements VertexConsumer {
 	private int uv1 = -1;
 	private int uv2 = -1;
 
+	/**
+	 * Writes whole vertices for well known formats, or null to write element by element.
+	 */
+	@Nullable
+	private final FusedVertexWriter fused;
+
 	private long vertexBase;
 	private final long end;
 
@@ -54,11 +62,13 @@ public class DirectVertexConsumer implements VertexConsumer {
 			offset += element.getByteSize();
 		}
 
+		this.fused = FusedVertexWriter.forFormat(format);
+
 		this.vertexBase = MemoryUtil.memAddress(buffer, startPos);
 		this.end = vertexBase + (long) maxVertices * stride;
 	}
 
-	private DirectVertexConsumer(DirectVertexConsumer parent, int maxVertices) {
+	private DirectVertexConsumer(DirectVertexConsumer parent, int firstVertex, int maxVertices) {
 		this.format = parent.format;
 		this.stride = parent.stride;
 		this.startPos = parent.startPos;
@@ -68,9 +78,10 @@ public class DirectVertexConsumer implements VertexConsumer {
 		this.uv = parent.uv;
 		this.uv1 = parent.uv1;
 		this.uv2 = parent.uv2;
+		this.fused = parent.fused;
 
-		this.vertexBase = parent.vertexBase;
-		this.end = parent.vertexBase + (long) maxVertices * this.stride;
+		this.vertexBase = parent.vertexBase + (long) firstVertex * this.stride;
+		this.end = this.vertexBase + (long) maxVertices * this.stride;
 	}
 
 	public void memSetZero() {
@@ -89,13 +100,89 @@ public class DirectVertexConsumer implements VertexConsumer {
 	public DirectVertexConsumer split(int vertexCount) {
 		int bytes = vertexCount * stride;
 
-		DirectVertexConsumer head = new DirectVertexConsumer(this, vertexCount);
+		DirectVertexConsumer head = new DirectVertexConsumer(this, 0, vertexCount);
 
 		this.vertexBase += bytes;
 
 		return head;
 	}
 
+	/**
+	 * Create a consumer for a range of this one without advancing this object's write-pointer.
+	 * Slices that don't overlap can be written to from different threads.
+	 * @param firstVertex The first vertex of the slice, relative to the current write-pointer.
+	 * @param vertexCount The number of vertices in the slice.
+	 * @return The slice.
+	 */
+	public DirectVertexConsumer slice(int firstVertex, int vertexCount) {
+		return new DirectVertexConsumer(this, firstVertex, vertexCount);
+	}
+
+	/**
+	 * Write a whole vertex and move on to the next one. Equivalent to calling each element method and then
+	 * {@link #endVertex()}, but formats with a {@link FusedVertexWriter} are written without looking up any offsets.
+	 *
+	 * @param overlay Packed overlay coordinates.
+	 * @param light Packed lightmap coordinates.
+	 */
+	public void writeVertex(float x, float y, float z, int r, int g, int b, int a, float u, float v, int overlay, int light, float nx, float ny, float nz) {
+		if (fused != null) {
+			checkOverflow();
+			fused.write(vertexBase, x, y, z, r, g, b, a, u, v, overlay, light, nx, ny, nz);
+		} else {
+			vertex(x, y, z);
+			color(r, g, b, a);
+			uv(u, v);
+			overlayCoords(overlay);
+			uv2(light);
+			normal(nx, ny, nz);
+		}
+		vertexBase += stride;
+	}
+
+	/**
+	 * @return The address the next vertex will be written to.
+	 */
+	public long getWritePointer() {
+		return vertexBase;
+	}
+
+	/**
+	 * Copy already formatted vertices into this consumer and move past them.
+	 * @param src The address of the first vertex to copy.
+	 * @param vertexCount The number of vertices to copy.
+	 */
+	public void copyVertices(long src, int vertexCount) {
+		long bytes = (long) vertexCount * stride;
+
+		if (vertexBase + bytes > end) {
+			throw new BufferOverflowException();
+		}
+
+		MemoryUtil.memCopy(src, vertexBase, bytes);
+		vertexBase += bytes;
+	}
+
+	/**
+	 * Transform the positions of vertices that were already written, in place.
+	 * @param from The address of the first vertex, as returned by {@link #getWritePointer()}.
+	 * @param vertexCount The number of vertices to transform.
+	 * @param pose A 4x4 affine matrix, column major.
+	 */
+	public void transformPositions(long from, int vertexCount, float[] pose) {
+		if (position < 0) return;
+
+		long last = from + (long) vertexCount * stride;
+		for (long base = from + position; base < last; base += stride) {
+			float x = MemoryUtil.memGetFloat(base);
+			float y = MemoryUtil.memGetFloat(base + 4);
+			float z = MemoryUtil.memGetFloat(base + 8);
+			MemoryUtil.memPutFloat(base, pose[0] * x + pose[4] * y + pose[8] * z + pose[12]);
+			MemoryUtil.memPutFloat(base + 4, pose[1] * x + pose[5] * y + pose[9] * z + pose[13]);
+			MemoryUtil.memPutFloat(base + 8, pose[2] * x + pose[6] * y + pose[10] * z + pose[14]);
+		}
+	}
+
 	@Override
 	public VertexConsumer vertex(double x, double y, double z) {
 		checkOverflow();
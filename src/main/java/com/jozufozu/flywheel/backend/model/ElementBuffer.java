@@ -15,6 +15,13 @@ public class ElementBuffer {
 		this.elementCount = elementCount;
 	}
 
+	/**
+	 * @return The buffer holding the indices, which may be shared with other models.
+	 */
+	public GlBuffer getBuffer() {
+		return buffer;
+	}
+
 	public void bind() {
 		buffer.bind();
 	}
@@ -0,0 +1,87 @@
+package com.jozufozu.flywheel.backend.model;
+
+import javax.annotation.Nullable;
+
+import org.lwjgl.system.MemoryUtil;
+
+import com.jozufozu.flywheel.util.RenderMath;
+import com.mojang.blaze3d.vertex.DefaultVertexFormat;
+import com.mojang.blaze3d.vertex.VertexFormat;
+
+/**
+ * Writes every attribute of a vertex in one call, at offsets fixed for a single {@link VertexFormat}.
+ *
+ * <p>
+ *     These cover the formats the batching engine renders into. Anything else goes through the per element
+ *     path in {@link DirectVertexConsumer}.
+ * </p>
+ *
+ * @see DirectVertexConsumer#writeVertex
+ */
+@FunctionalInterface
+public interface FusedVertexWriter {
+
+	/**
+	 * position, color, uv, light, normal, padding
+	 */
+	FusedVertexWriter BLOCK = FusedVertexWriter::writeBlock;
+
+	/**
+	 * position, color, uv, overlay, light, normal, padding
+	 */
+	FusedVertexWriter NEW_ENTITY = FusedVertexWriter::writeNewEntity;
+
+	/**
+	 * @param ptr The address of the vertex.
+	 * @param overlay Packed overlay coordinates, ignored by formats without them.
+	 * @param light Packed lightmap coordinates.
+	 */
+	void write(long ptr, float x, float y, float z, int r, int g, int b, int a, float u, float v, int overlay, int light, float nx, float ny, float nz);
+
+	@Nullable
+	static FusedVertexWriter forFormat(VertexFormat format) {
+		if (format.equals(DefaultVertexFormat.BLOCK)) {
+			return BLOCK;
+		}
+		if (format.equals(DefaultVertexFormat.NEW_ENTITY)) {
+			return NEW_ENTITY;
+		}
+		return null;
+	}
+
+	private static void writeBlock(long ptr, float x, float y, float z, int r, int g, int b, int a, float u, float v, int overlay, int light, float nx, float ny, float nz) {
+		MemoryUtil.memPutFloat(ptr, x);
+		MemoryUtil.memPutFloat(ptr + 4, y);
+		MemoryUtil.memPutFloat(ptr + 8, z);
+		MemoryUtil.memPutByte(ptr + 12, (byte) r);
+		MemoryUtil.memPutByte(ptr + 13, (byte) g);
+		MemoryUtil.memPutByte(ptr + 14, (byte) b);
+		MemoryUtil.memPutByte(ptr + 15, (byte) a);
+		MemoryUtil.memPutFloat(ptr + 16, u);
+		MemoryUtil.memPutFloat(ptr + 20, v);
+		MemoryUtil.memPutShort(ptr + 24, (short) (light & 0xFFFF));
+		MemoryUtil.memPutShort(ptr + 26, (short) (light >> 16 & 0xFFFF));
+		MemoryUtil.memPutByte(ptr + 28, RenderMath.nb(nx));
+		MemoryUtil.memPutByte(ptr + 29, RenderMath.nb(ny));
+		MemoryUtil.memPutByte(ptr + 30, RenderMath.nb(nz));
+	}
+
+	private static void writeNewEntity(long ptr, float x, float y, float z, int r, int g, int b, int a, float u, float v, int overlay, int light, float nx, float ny, float nz) {
+		MemoryUtil.memPutFloat(ptr, x);
+		MemoryUtil.memPutFloat(ptr + 4, y);
+		MemoryUtil.memPutFloat(ptr + 8, z);
+		MemoryUtil.memPutByte(ptr + 12, (byte) r);
+		MemoryUtil.memPutByte(ptr + 13, (byte) g);
+		MemoryUtil.memPutByte(ptr + 14, (byte) b);
+		MemoryUtil.memPutByte(ptr + 15, (byte) a);
+		MemoryUtil.memPutFloat(ptr + 16, u);
+		MemoryUtil.memPutFloat(ptr + 20, v);
+		MemoryUtil.memPutShort(ptr + 24, (short) (overlay & 0xFFFF));
+		MemoryUtil.memPutShort(ptr + 26, (short) (overlay >> 16 & 0xFFFF));
+		MemoryUtil.memPutShort(ptr + 28, (short) (light & 0xFFFF));
+		MemoryUtil.memPutShort(ptr + 30, (short) (light >> 16 & 0xFFFF));
+		MemoryUtil.memPutByte(ptr + 32, RenderMath.nb(nx));
+		MemoryUtil.memPutByte(ptr + 33, RenderMath.nb(ny));
+		MemoryUtil.memPutByte(ptr + 34, RenderMath.nb(nz));
+	}
+}
@@ -11,6 +11,7 @@ import com.jozufozu.flywheel.backend.gl.buffer.GlBuffer;
 import com.jozufozu.flywheel.backend.gl.buffer.GlBufferType;
 import com.jozufozu.flywheel.backend.gl.buffer.MappedBuffer;
 import com.jozufozu.flywheel.backend.gl.buffer.MappedGlBuffer;
+import com.jozufozu.flywheel.backend.gl.versioned.GlCompat;
 import com.jozufozu.flywheel.core.model.Model;
 
 /**
@@ -75,6 +76,15 @@ public class IndexedModel implements BufferedModel {
 		GL31.glDrawElementsInstanced(primitiveMode.glEnum, ebo.elementCount, ebo.eboIndexType.getGlEnum(), 0, instanceCount);
 	}
 
+	@Override
+	public void drawInstances(int instanceCount, int baseInstance) {
+		if (!valid()) return;
+
+		ebo.bind();
+
+		GlCompat.getInstance().baseInstance.drawElementsInstancedBaseVertexBaseInstance(primitiveMode.glEnum, ebo.elementCount, ebo.eboIndexType.getGlEnum(), 0, instanceCount, 0, baseInstance);
+	}
+
 	public boolean isDeleted() {
 		return deleted;
 	}
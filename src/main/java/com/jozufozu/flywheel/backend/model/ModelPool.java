@@ -2,6 +2,8 @@ package com.jozufozu.flywheel.backend.model;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 import org.lwjgl.opengl.GL32;
 
@@ -14,22 +16,49 @@ import com.jozufozu.flywheel.backend.gl.buffer.GlBuffer;
 import com.jozufozu.flywheel.backend.gl.buffer.GlBufferType;
 import com.jozufozu.flywheel.backend.gl.buffer.MappedBuffer;
 import com.jozufozu.flywheel.backend.gl.buffer.MappedGlBuffer;
+import com.jozufozu.flywheel.backend.gl.versioned.GlCompat;
+import com.jozufozu.flywheel.backend.instancing.FrameProfiler;
 import com.jozufozu.flywheel.core.model.Model;
-
+import com.jozufozu.flywheel.util.RangeAllocator;
+
+/**
+ * Many models in one vertex buffer, each drawn by its first vertex.
+ *
+ * <p>
+ *     Vertex ranges come from a free list, so freeing one is cheap and the space is reused by the next model that fits.
+ *     The holes that remain are closed a little every frame by moving the last models down into them, copying on the
+ *     GPU, until a frame finds nothing left to move. Only freeing another model starts that again.
+ * </p>
+ */
 public class ModelPool implements ModelAllocator {
 
+	/**
+	 * The most bytes moved to close holes in one frame.
+	 */
+	private static final int DEFRAG_BYTES_PER_FRAME = 1 << 18;
+	/**
+	 * The most models looked at to close holes in one frame.
+	 */
+	private static final int DEFRAG_MODELS_PER_FRAME = 32;
+
 	protected final VertexType vertexType;
 
-	private final List<PooledModel> models = new ArrayList<>();
+	/**
+	 * Every model with any vertices, by first vertex.
+	 */
+	private final TreeMap<Integer, PooledModel> models = new TreeMap<>();
 
 	private final List<PooledModel> pendingUpload = new ArrayList<>();
 
-	private final GlBuffer vbo;
+	private final RangeAllocator vertices = new RangeAllocator();
 
-	private int vertices;
+	private final GlBuffer vbo;
 
 	private boolean dirty;
-	private boolean anyToRemove;
+	/**
+	 * Whether a model was freed since the last time {@link #defragment} found nothing to move.
+	 */
+	private boolean fragmented;
 
 	/**
 	 * Create a new model pool.
@@ -38,10 +67,21 @@ public class ModelPool implements ModelAllocator {
 	 * @param initialSize The initial size of the pool, in vertices.
 	 */
 	public ModelPool(VertexType vertexType, int initialSize) {
+		this(vertexType, initialSize, new MappedGlBuffer(GlBufferType.ARRAY_BUFFER));
+	}
+
+	/**
+	 * Create a new model pool backed by the given buffer.
+	 *
+	 * @param vertexType The vertex type of the models that will be stored in the pool.
+	 * @param initialSize The initial size of the pool, in vertices.
+	 * @param vbo The buffer to store the models in. The pool takes ownership of it.
+	 */
+	public ModelPool(VertexType vertexType, int initialSize, GlBuffer vbo) {
 		this.vertexType = vertexType;
 		int stride = vertexType.getStride();
 
-		vbo = new MappedGlBuffer(GlBufferType.ARRAY_BUFFER);
+		this.vbo = vbo;
 
 		vbo.bind();
 		vbo.ensureCapacity((long) stride * initialSize);
@@ -56,10 +96,12 @@ public class ModelPool implements ModelAllocator {
 	 */
 	@Override
 	public PooledModel alloc(Model model, Callback callback) {
-		PooledModel bufferedModel = new PooledModel(model, vertices);
+		int vertexCount = model.vertexCount();
+		PooledModel bufferedModel = new PooledModel(model, vertexCount > 0 ? vertices.alloc(vertexCount) : 0);
 		bufferedModel.callback = callback;
-		vertices += model.vertexCount();
-		models.add(bufferedModel);
+		if (vertexCount > 0) {
+			models.put(bufferedModel.first, bufferedModel);
+		}
 		pendingUpload.add(bufferedModel);
 
 		setDirty();
@@ -68,7 +110,7 @@ public class ModelPool implements ModelAllocator {
 
 	public void flush() {
 		if (dirty) {
-			if (anyToRemove) processDeletions();
+			FrameProfiler.push("modelPool.flush");
 
 			vbo.bind();
 			if (realloc()) {
@@ -80,27 +122,60 @@ public class ModelPool implements ModelAllocator {
 
 			dirty = false;
 			pendingUpload.clear();
+
+			FrameProfiler.pop();
+		}
+
+		if (fragmented) {
+			FrameProfiler.push("modelPool.defragment");
+			// the holes left can't be closed by the models we look at, don't look again until something changes
+			fragmented = defragment() && vertices.getFreeSpace() > 0;
+			FrameProfiler.pop();
 		}
 	}
 
-	private void processDeletions() {
+	/**
+	 * Move the last models into holes in front of them, until the pool is packed or this frame's budget is spent.
+	 *
+	 * @return {@code true} if any model was moved.
+	 */
+	private boolean defragment() {
+		int stride = vertexType.getStride();
+		int bytesMoved = 0;
+		int looked = 0;
+
+		PooledModel model = models.isEmpty() ? null : models.lastEntry().getValue();
+		while (model != null && bytesMoved < DEFRAG_BYTES_PER_FRAME && looked < DEFRAG_MODELS_PER_FRAME && vertices.getFreeSpace() > 0) {
+			looked++;
+
+			// look at the next one down before this one maybe moves
+			Map.Entry<Integer, PooledModel> lower = models.lowerEntry(model.first);
+			PooledModel next = lower == null ? null : lower.getValue();
+
+			int count = model.getVertexCount();
+			int bytes = count * stride;
 
-		// remove deleted models
-		models.removeIf(PooledModel::isDeleted);
+			// a model larger than the whole budget still gets its own frame
+			if (bytesMoved > 0 && bytesMoved + bytes > DEFRAG_BYTES_PER_FRAME) break;
 
-		// re-evaluate first vertex for each model
-		int vertices = 0;
-		for (PooledModel model : models) {
-			if (model.first != vertices)
-				pendingUpload.add(model);
+			int to = vertices.allocFree(count, model.first);
 
-			model.first = vertices;
+			if (to >= 0) {
+				vbo.copyWithin((long) model.first * stride, (long) to * stride, bytes);
 
-			vertices += model.getVertexCount();
+				models.remove(model.first);
+				vertices.free(model.first, count);
+
+				model.first = to;
+				models.put(to, model);
+
+				bytesMoved += bytes;
+			}
+
+			model = next;
 		}
 
-		this.vertices = vertices;
-		this.anyToRemove = false;
+		return bytesMoved > 0;
 	}
 
 	/**
@@ -109,20 +184,22 @@ public class ModelPool implements ModelAllocator {
 	 * @return true if the buffer was reallocated
 	 */
 	private boolean realloc() {
-		return vbo.ensureCapacity((long) vertices * vertexType.getStride());
+		return vbo.ensureCapacity((long) vertices.getEnd() * vertexType.getStride());
 	}
 
 	private void uploadAll() {
 		try (MappedBuffer buffer = vbo.getBuffer()) {
 			VertexWriter writer = vertexType.createWriter(buffer.unwrap());
 
-			int vertices = 0;
-			for (PooledModel model : models) {
-				model.first = vertices;
-
+			for (PooledModel model : models.values()) {
 				buffer(writer, model);
+			}
 
-				vertices += model.getVertexCount();
+			// empty models aren't kept track of, they only need to hear that they've been allocated
+			for (PooledModel model : pendingUpload) {
+				if (model.getVertexCount() == 0 && !model.remove) {
+					buffer(writer, model);
+				}
 			}
 
 		} catch (Exception e) {
@@ -134,7 +211,10 @@ public class ModelPool implements ModelAllocator {
 		try (MappedBuffer buffer = vbo.getBuffer()) {
 			VertexWriter writer = vertexType.createWriter(buffer.unwrap());
 			for (PooledModel model : pendingUpload) {
-				buffer(writer, model);
+				// deleted before it was ever uploaded, its range may already belong to someone else
+				if (!model.remove) {
+					buffer(writer, model);
+				}
 			}
 			pendingUpload.clear();
 		} catch (Exception e) {
@@ -148,6 +228,19 @@ public class ModelPool implements ModelAllocator {
 		if (model.callback != null) model.callback.onAlloc(model);
 	}
 
+	/**
+	 * Point the first attributes of the given vertex array at the pool, so models can be drawn by their first vertex.
+	 * The VAO must be bound externally.
+	 */
+	public void setupState(GlVertexArray vao) {
+		vbo.bind();
+		vao.bindAttributes(0, vertexType.getLayout());
+	}
+
+	public int getAttributeCount() {
+		return vertexType.getLayout().getAttributeCount();
+	}
+
 	private void setDirty() {
 		dirty = true;
 	}
@@ -158,7 +251,10 @@ public class ModelPool implements ModelAllocator {
 
 	public class PooledModel implements BufferedModel {
 
-		private final ElementBuffer ebo;
+		/**
+		 * Created on first draw, so allocating a model doesn't need GL.
+		 */
+		private ElementBuffer ebo;
 		private Callback callback;
 
 		private final Model model;
@@ -169,7 +265,20 @@ public class ModelPool implements ModelAllocator {
 		public PooledModel(Model model, int first) {
 			this.model = model;
 			this.first = first;
-			ebo = model.createEBO();
+		}
+
+		public ElementBuffer getEBO() {
+			if (ebo == null) {
+				ebo = model.createEBO();
+			}
+			return ebo;
+		}
+
+		/**
+		 * @return The index of this model's first vertex in the pool.
+		 */
+		public int getFirstVertex() {
+			return first;
 		}
 
 		@Override
@@ -191,6 +300,7 @@ public class ModelPool implements ModelAllocator {
 
 		@Override
 		public void drawCall() {
+			ElementBuffer ebo = getEBO();
 			GL32.glDrawElementsBaseVertex(GlPrimitive.TRIANGLES.glEnum, ebo.elementCount, ebo.eboIndexType.getGlEnum(), 0, first);
 		}
 
@@ -198,6 +308,7 @@ public class ModelPool implements ModelAllocator {
 		public void drawInstances(int instanceCount) {
 			if (!valid()) return;
 
+			ElementBuffer ebo = getEBO();
 			ebo.bind();
 
 			//Backend.log.info(StringUtil.args("drawElementsInstancedBaseVertex", GlPrimitive.TRIANGLES, ebo.elementCount, ebo.eboIndexType, 0, instanceCount, first));
@@ -205,16 +316,33 @@ public class ModelPool implements ModelAllocator {
 			GL32.glDrawElementsInstancedBaseVertex(GlPrimitive.TRIANGLES.glEnum, ebo.elementCount, ebo.eboIndexType.getGlEnum(), 0, instanceCount, first);
 		}
 
+		@Override
+		public void drawInstances(int instanceCount, int baseInstance) {
+			if (!valid()) return;
+
+			ElementBuffer ebo = getEBO();
+			ebo.bind();
+
+			GlCompat.getInstance().baseInstance.drawElementsInstancedBaseVertexBaseInstance(GlPrimitive.TRIANGLES.glEnum, ebo.elementCount, ebo.eboIndexType.getGlEnum(), 0, instanceCount, first, baseInstance);
+		}
+
 		@Override
 		public boolean isDeleted() {
-			return false;
+			return remove;
 		}
 
 		@Override
 		public void delete() {
-			setDirty();
-			anyToRemove = true;
+			if (remove) return;
+
 			remove = true;
+
+			int vertexCount = getVertexCount();
+			if (vertexCount > 0) {
+				models.remove(first);
+				vertices.free(first, vertexCount);
+				fragmented = true;
+			}
 		}
 	}
 
@@ -12,6 +12,7 @@ import com.jozufozu.flywheel.backend.gl.buffer.GlBuffer;
 import com.jozufozu.flywheel.backend.gl.buffer.GlBufferType;
 import com.jozufozu.flywheel.backend.gl.buffer.MappedBuffer;
 import com.jozufozu.flywheel.backend.gl.buffer.MappedGlBuffer;
+import com.jozufozu.flywheel.backend.gl.versioned.GlCompat;
 import com.jozufozu.flywheel.core.model.Model;
 
 public class VBOModel implements BufferedModel {
@@ -76,6 +77,13 @@ public class VBOModel implements BufferedModel {
 		GL31.glDrawArraysInstanced(primitiveMode.glEnum, 0, getVertexCount(), instanceCount);
 	}
 
+	@Override
+	public void drawInstances(int instanceCount, int baseInstance) {
+		if (!valid()) return;
+
+		GlCompat.getInstance().baseInstance.drawArraysInstancedBaseInstance(primitiveMode.glEnum, 0, getVertexCount(), instanceCount, baseInstance);
+	}
+
 	public void delete() {
 		if (deleted) return;
 
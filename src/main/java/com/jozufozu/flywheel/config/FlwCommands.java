@@ -5,6 +5,7 @@ import java.util.function.BiConsumer;
 import org.jetbrains.annotations.NotNull;
 
 import com.jozufozu.flywheel.backend.Backend;
+import com.jozufozu.flywheel.backend.instancing.FrameProfiler;
 import com.mojang.brigadier.Command;
 import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.builder.LiteralArgumentBuilder;
@@ -87,9 +88,70 @@ public class FlwCommands {
 				}
 			));
 
+		commandBuilder.addValue(config.client.doubleBufferBatching, "doubleBufferBatching", (builder, value) -> booleanValueCommand(builder, config, value,
+				(source, bool) -> {
+					LocalPlayer player = Minecraft.getInstance().player;
+					if (player == null) return;
+
+					Component text = new TextComponent("Double buffered batching is currently: ").append(boolToText(bool));
+					player.displayClientMessage(text, false);
+				},
+				(source, bool) -> {
+					LocalPlayer player = Minecraft.getInstance().player;
+					if (player == null) return;
+
+					Component text = boolToText(bool).append(new TextComponent(" double buffered batching.").withStyle(ChatFormatting.WHITE));
+					player.displayClientMessage(text, false);
+
+					Backend.reloadWorldRenderers();
+				}
+			));
+
+		commandBuilder.command.then(Commands.literal("profile")
+				.executes(context -> {
+					LocalPlayer player = Minecraft.getInstance().player;
+					if (player != null) {
+						player.displayClientMessage(getProfilerMessage(), false);
+					}
+					return Command.SINGLE_SUCCESS;
+				})
+				.then(Commands.literal("reset")
+					.executes(context -> {
+						FrameProfiler.reset();
+
+						LocalPlayer player = Minecraft.getInstance().player;
+						if (player != null) {
+							player.displayClientMessage(new TextComponent("Reset the frame profiler"), false);
+						}
+						return Command.SINGLE_SUCCESS;
+					})));
+
 		commandBuilder.build(event.getDispatcher());
 	}
 
+	public static Component getProfilerMessage() {
+		MutableComponent msg = new TextComponent("Flywheel frame profile, last " + FrameProfiler.HISTORY + " samples:").withStyle(ChatFormatting.GOLD);
+
+		for (FrameProfiler.Node stage : FrameProfiler.getRoot().getChildren()) {
+			appendProfilerNode(msg, stage, 0);
+		}
+
+		return msg;
+	}
+
+	private static void appendProfilerNode(MutableComponent msg, FrameProfiler.Node node, int depth) {
+		FrameProfiler.Stats stats = node.getStats();
+
+		if (stats != null) {
+			msg.append(new TextComponent("\n" + "  ".repeat(depth) + node.name + ": ").withStyle(ChatFormatting.WHITE))
+					.append(new TextComponent(stats.format()).withStyle(ChatFormatting.GRAY));
+		}
+
+		for (FrameProfiler.Node child : node.getChildren()) {
+			appendProfilerNode(msg, child, depth + 1);
+		}
+	}
+
 	public static void booleanValueCommand(LiteralArgumentBuilder<CommandSourceStack> builder, FlwConfig config, ConfigValue<Boolean> value, BiConsumer<CommandSourceStack, Boolean> displayAction, BiConsumer<CommandSourceStack, Boolean> setAction) {
 		builder
 			.executes(context -> {
@@ -118,6 +180,8 @@ public class FlwCommands {
 		return switch (type) {
 			case OFF -> new TextComponent("Disabled Flywheel").withStyle(ChatFormatting.RED);
 			case INSTANCING -> new TextComponent("Using Instancing Engine").withStyle(ChatFormatting.GREEN);
+			case HEADLESS -> new TextComponent("Using Headless Engine, nothing will be drawn").withStyle(ChatFormatting.YELLOW);
+			case HYBRID -> new TextComponent("Using Hybrid Engine").withStyle(ChatFormatting.GREEN);
 			case BATCHING -> {
 				MutableComponent msg = new TextComponent("Using Batching Engine").withStyle(ChatFormatting.GREEN);
 
@@ -39,6 +39,10 @@ public class FlwConfig {
 		return client.limitUpdates.get();
 	}
 
+	public boolean doubleBufferBatching() {
+		return client.doubleBufferBatching.get();
+	}
+
 	public static void init() {
 	}
 
@@ -46,6 +50,7 @@ public class FlwConfig {
 		public final EnumValue<FlwEngine> engine;
 		public final BooleanValue debugNormals;
 		public final BooleanValue limitUpdates;
+		public final BooleanValue doubleBufferBatching;
 
 		public ClientConfig(ForgeConfigSpec.Builder builder) {
 			engine = builder.comment("Enable or disable the entire engine")
@@ -56,6 +61,9 @@ public class FlwConfig {
 
 			limitUpdates = builder.comment("Enable or disable instance update limiting with distance.")
 					.define("limitUpdates", true);
+
+			doubleBufferBatching = builder.comment("Let the batching engine transform the next frame while drawing the last one. Hides transform time, but instances lag a frame behind.")
+					.define("doubleBufferBatching", false);
 		}
 	}
 }
@@ -10,6 +10,8 @@ public enum FlwEngine {
 	OFF("off", "Off"),
 	BATCHING("batching", "Parallel Batching"),
 	INSTANCING("instancing", "GL33 Instanced Arrays"),
+	HEADLESS("headless", "Headless (no GL)"),
+	HYBRID("hybrid", "Hybrid Instancing and Batching"),
 	;
 
 	private static final Map<String, FlwEngine> lookup;
@@ -9,6 +9,9 @@ import com.jozufozu.flywheel.core.layout.BufferLayout;
 import com.jozufozu.flywheel.core.layout.CommonItems;
 import com.jozufozu.flywheel.core.layout.MatrixItems;
 import com.jozufozu.flywheel.core.model.ModelTransformer;
+import com.jozufozu.flywheel.mixin.matrix.Matrix4fAccessor;
+import com.jozufozu.flywheel.util.box.FloatBox;
+import com.mojang.math.Vector4f;
 
 import net.minecraft.resources.ResourceLocation;
 
@@ -45,4 +48,26 @@ public class ModelType implements Instanced<ModelData>, Batched<ModelData> {
 				.color(d.r, d.g, d.b, d.a)
 				.light(d.getPackedLight());
 	}
+
+	@Override
+	public boolean expandBounds(ModelData d, Vector4f modelSphere, FloatBox bounds) {
+		Matrix4fAccessor m = (Matrix4fAccessor) (Object) d.model;
+
+		float x = modelSphere.x();
+		float y = modelSphere.y();
+		float z = modelSphere.z();
+
+		float centerX = m.flywheel$m00() * x + m.flywheel$m01() * y + m.flywheel$m02() * z + m.flywheel$m03();
+		float centerY = m.flywheel$m10() * x + m.flywheel$m11() * y + m.flywheel$m12() * z + m.flywheel$m13();
+		float centerZ = m.flywheel$m20() * x + m.flywheel$m21() * y + m.flywheel$m22() * z + m.flywheel$m23();
+
+		// the longest basis vector is the most the sphere can be stretched in any direction
+		float scaleX = m.flywheel$m00() * m.flywheel$m00() + m.flywheel$m10() * m.flywheel$m10() + m.flywheel$m20() * m.flywheel$m20();
+		float scaleY = m.flywheel$m01() * m.flywheel$m01() + m.flywheel$m11() * m.flywheel$m11() + m.flywheel$m21() * m.flywheel$m21();
+		float scaleZ = m.flywheel$m02() * m.flywheel$m02() + m.flywheel$m12() * m.flywheel$m12() + m.flywheel$m22() * m.flywheel$m22();
+		float scale = (float) Math.sqrt(Math.max(scaleX, Math.max(scaleY, scaleZ)));
+
+		bounds.expandSphere(centerX, centerY, centerZ, modelSphere.w() * scale);
+		return true;
+	}
 }
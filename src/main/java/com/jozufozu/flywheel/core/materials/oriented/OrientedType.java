@@ -8,7 +8,8 @@ import com.jozufozu.flywheel.core.Programs;
 import com.jozufozu.flywheel.core.layout.BufferLayout;
 import com.jozufozu.flywheel.core.layout.CommonItems;
 import com.jozufozu.flywheel.core.model.ModelTransformer;
-import com.mojang.math.Quaternion;
+import com.jozufozu.flywheel.util.box.FloatBox;
+import com.mojang.math.Vector4f;
 
 import net.minecraft.resources.ResourceLocation;
 
@@ -44,7 +45,20 @@ public class OrientedType implements Instanced<OrientedData>, Batched<OrientedDa
 		b.light(d.getPackedLight())
 				.color(d.r, d.g, d.b, d.a)
 				.translate(d.posX + d.pivotX, d.posY + d.pivotY, d.posZ + d.pivotZ)
-				.multiply(new Quaternion(d.qX, d.qY, d.qZ, d.qW))
+				.multiply(d.qX, d.qY, d.qZ, d.qW)
 				.translate(-d.pivotX, -d.pivotY, -d.pivotZ);
 	}
+
+	@Override
+	public boolean expandBounds(OrientedData d, Vector4f modelSphere, FloatBox bounds) {
+		// The rotation happens about the pivot, so no matter the orientation,
+		// the model stays within this distance of the pivot.
+		float dX = modelSphere.x() - d.pivotX;
+		float dY = modelSphere.y() - d.pivotY;
+		float dZ = modelSphere.z() - d.pivotZ;
+		float radius = (float) Math.sqrt(dX * dX + dY * dY + dZ * dZ) + modelSphere.w();
+
+		bounds.expandSphere(d.posX + d.pivotX, d.posY + d.pivotY, d.posZ + d.pivotZ, radius);
+		return true;
+	}
 }
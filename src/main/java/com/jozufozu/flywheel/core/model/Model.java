@@ -7,6 +7,7 @@ import com.jozufozu.flywheel.api.vertex.VertexType;
 import com.jozufozu.flywheel.backend.model.ElementBuffer;
 import com.jozufozu.flywheel.core.Formats;
 import com.jozufozu.flywheel.core.QuadConverter;
+import com.mojang.math.Vector4f;
 
 /**
  * A model that can be rendered by flywheel.
@@ -76,6 +77,57 @@ public interface Model {
 		return vertexCount() == 0;
 	}
 
+	/**
+	 * Compute a sphere that contains every vertex of this model.
+	 *
+	 * <p>
+	 *     The sphere is centered on the middle of the model's bounding box, so it isn't minimal, but it is cheap and
+	 *     conservative. Callers should cache the result.
+	 * </p>
+	 * @return The sphere, with the center in xyz and the radius in w.
+	 */
+	default Vector4f getBoundingSphere() {
+		VertexList reader = getReader();
+		int vertexCount = reader.getVertexCount();
+
+		if (vertexCount == 0) {
+			return new Vector4f(0, 0, 0, 0);
+		}
+
+		float minX = Float.POSITIVE_INFINITY;
+		float minY = Float.POSITIVE_INFINITY;
+		float minZ = Float.POSITIVE_INFINITY;
+		float maxX = Float.NEGATIVE_INFINITY;
+		float maxY = Float.NEGATIVE_INFINITY;
+		float maxZ = Float.NEGATIVE_INFINITY;
+
+		for (int i = 0; i < vertexCount; i++) {
+			float x = reader.getX(i);
+			float y = reader.getY(i);
+			float z = reader.getZ(i);
+			minX = Math.min(minX, x);
+			minY = Math.min(minY, y);
+			minZ = Math.min(minZ, z);
+			maxX = Math.max(maxX, x);
+			maxY = Math.max(maxY, y);
+			maxZ = Math.max(maxZ, z);
+		}
+
+		float centerX = (minX + maxX) * 0.5f;
+		float centerY = (minY + maxY) * 0.5f;
+		float centerZ = (minZ + maxZ) * 0.5f;
+
+		float radiusSqr = 0;
+		for (int i = 0; i < vertexCount; i++) {
+			float dX = reader.getX(i) - centerX;
+			float dY = reader.getY(i) - centerY;
+			float dZ = reader.getZ(i) - centerZ;
+			radiusSqr = Math.max(radiusSqr, dX * dX + dY * dY + dZ * dZ);
+		}
+
+		return new Vector4f(centerX, centerY, centerZ, (float) Math.sqrt(radiusSqr));
+	}
+
 	default void writeInto(ByteBuffer buffer) {
 		getType().createWriter(buffer).writeVertexList(getReader());
 	}
@@ -1,6 +1,9 @@
 package com.jozufozu.flywheel.core.model;
 
+import java.nio.FloatBuffer;
+
 import com.jozufozu.flywheel.api.vertex.VertexList;
+import com.jozufozu.flywheel.backend.model.DirectVertexConsumer;
 import com.jozufozu.flywheel.util.DiffuseLightCalculator;
 import com.jozufozu.flywheel.util.transform.Transform;
 import com.mojang.blaze3d.vertex.PoseStack;
@@ -8,8 +11,6 @@ import com.mojang.blaze3d.vertex.VertexConsumer;
 import com.mojang.math.Matrix3f;
 import com.mojang.math.Matrix4f;
 import com.mojang.math.Quaternion;
-import com.mojang.math.Vector3f;
-import com.mojang.math.Vector4f;
 
 import net.minecraft.client.renderer.LightTexture;
 import net.minecraft.client.renderer.texture.OverlayTexture;
@@ -17,100 +18,167 @@ import net.minecraft.util.Mth;
 
 public class ModelTransformer {
 
+	/**
+	 * How many vertices are read, transformed and written at a time.
+	 */
+	private static final int BLOCK_SIZE = 64;
+
+	private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
 	private final Model model;
 	private final VertexList reader;
 
 	public final Context context = new Context();
 
+	private final TransformKernel kernel = TransformKernel.get();
+
 	public ModelTransformer(Model model) {
 		this.model = model;
 		reader = model.getReader();
 	}
 
 	public void renderInto(Params params, PoseStack input, VertexConsumer builder) {
+		renderInto(params, input, builder, DiffuseLightCalculator.forCurrentLevel());
+	}
+
+	/**
+	 * Transform the model and write it into the given consumer.
+	 *
+	 * @param diffuseCalculator Used to bake diffuse lighting into the output colors, if the {@link #context} asks for it.
+	 */
+	public void renderInto(Params params, PoseStack input, VertexConsumer builder, DiffuseLightCalculator diffuseCalculator) {
 		if (isEmpty())
 			return;
 
-		Vector4f pos = new Vector4f();
-		Vector3f normal = new Vector3f();
+		Scratch scratch = SCRATCH.get();
+		PoseStack.Pose pose = input.last();
 
-		Matrix4f modelMat = input.last()
-				.pose()
-				.copy();
-		modelMat.multiply(params.model);
+		pose.pose()
+				.store(scratch.poseBuffer);
+		params.storeModel(scratch.pose, scratch.modelMat);
 
-		Matrix3f normalMat;
 		if (context.fullNormalTransform) {
-			normalMat = input.last().normal().copy();
-			normalMat.mul(params.normal);
+			pose.normal()
+					.store(scratch.poseNormalBuffer);
+			params.storeNormal(scratch.poseNormal, scratch.normalMat);
 		} else {
-			normalMat = params.normal.copy();
+			params.storeNormal(scratch.normalMat);
 		}
 
-		final DiffuseLightCalculator diffuseCalculator = DiffuseLightCalculator.forCurrentLevel();
-
 		final int vertexCount = reader.getVertexCount();
-		for (int i = 0; i < vertexCount; i++) {
-			float x = reader.getX(i);
-			float y = reader.getY(i);
-			float z = reader.getZ(i);
-			pos.set(x, y, z, 1F);
-			pos.transform(modelMat);
-			builder.vertex(pos.x(), pos.y(), pos.z());
-
-			float normalX = reader.getNX(i);
-			float normalY = reader.getNY(i);
-			float normalZ = reader.getNZ(i);
-
-			normal.set(normalX, normalY, normalZ);
-			normal.transform(normalMat);
-			normal.normalize();
-			float nx = normal.x();
-			float ny = normal.y();
-			float nz = normal.z();
-
-			byte r, g, b, a;
-			if (params.useParamColor) {
-				r = (byte) params.r;
-				g = (byte) params.g;
-				b = (byte) params.b;
-				a = (byte) params.a;
-			} else {
-				r = reader.getR(i);
-				g = reader.getG(i);
-				b = reader.getB(i);
-				a = reader.getA(i);
-			}
-			if (context.outputColorDiffuse) {
-				float instanceDiffuse = diffuseCalculator.getDiffuse(nx, ny, nz);
-				int colorR = transformColor(r, instanceDiffuse);
-				int colorG = transformColor(g, instanceDiffuse);
-				int colorB = transformColor(b, instanceDiffuse);
-				builder.color(colorR, colorG, colorB, a);
-			} else {
-				builder.color(r, g, b, a);
+		for (int start = 0; start < vertexCount; start += BLOCK_SIZE) {
+			int count = Math.min(BLOCK_SIZE, vertexCount - start);
+
+			for (int j = 0; j < count; j++) {
+				int i = start + j;
+				scratch.x[j] = reader.getX(i);
+				scratch.y[j] = reader.getY(i);
+				scratch.z[j] = reader.getZ(i);
+				scratch.nx[j] = reader.getNX(i);
+				scratch.ny[j] = reader.getNY(i);
+				scratch.nz[j] = reader.getNZ(i);
 			}
 
-			//builder.color(Math.max(0, (int) (nx * 255)), Math.max(0, (int) (ny * 255)), Math.max(0, (int) (nz * 255)), 0xFF);
-			//builder.color(Math.max(0, (int) (normalX * 255)), Math.max(0, (int) (normalY * 255)), Math.max(0, (int) (normalZ * 255)), 0xFF);
+			kernel.transformPositions(scratch.modelMat, scratch.x, scratch.y, scratch.z, count);
+			kernel.transformNormals(scratch.normalMat, scratch.nx, scratch.ny, scratch.nz, count);
 
-			float u = reader.getU(i);
-			float v = reader.getV(i);
-			if (params.spriteShiftFunc != null) {
-				params.spriteShiftFunc.shift(builder, u, v);
+			if (builder instanceof DirectVertexConsumer direct) {
+				for (int j = 0; j < count; j++) {
+					writeVertexFused(params, direct, diffuseCalculator, scratch, start + j, j);
+				}
 			} else {
-				builder.uv(u, v);
+				for (int j = 0; j < count; j++) {
+					writeVertex(params, builder, diffuseCalculator, scratch, start + j, j);
+				}
 			}
+		}
+	}
+
+	/**
+	 * Same as {@link #writeVertex}, but the whole vertex goes out in one call.
+	 */
+	private void writeVertexFused(Params params, DirectVertexConsumer builder, DiffuseLightCalculator diffuseCalculator, Scratch scratch, int i, int j) {
+		float nx = scratch.nx[j];
+		float ny = scratch.ny[j];
+		float nz = scratch.nz[j];
+
+		int r, g, b, a;
+		if (params.useParamColor) {
+			r = params.r & 0xFF;
+			g = params.g & 0xFF;
+			b = params.b & 0xFF;
+			a = params.a & 0xFF;
+		} else {
+			r = Byte.toUnsignedInt(reader.getR(i));
+			g = Byte.toUnsignedInt(reader.getG(i));
+			b = Byte.toUnsignedInt(reader.getB(i));
+			a = Byte.toUnsignedInt(reader.getA(i));
+		}
+		if (context.outputColorDiffuse) {
+			float instanceDiffuse = diffuseCalculator.getDiffuse(nx, ny, nz);
+			r = transformColor(r, instanceDiffuse);
+			g = transformColor(g, instanceDiffuse);
+			b = transformColor(b, instanceDiffuse);
+		}
+
+		float u = reader.getU(i);
+		float v = reader.getV(i);
+		if (params.spriteShiftFunc != null) {
+			params.spriteShiftFunc.shift(scratch.uv, u, v);
+			u = scratch.uv.u;
+			v = scratch.uv.v;
+		}
+
+		int light = params.useParamLight ? params.packedLightCoords : reader.getLight(i);
+
+		builder.writeVertex(scratch.x[j], scratch.y[j], scratch.z[j], r, g, b, a, u, v, params.overlay, light, nx, ny, nz);
+	}
 
-			// not always used, but will be ignored by formats that don't use it
-			builder.overlayCoords(params.overlay);
+	private void writeVertex(Params params, VertexConsumer builder, DiffuseLightCalculator diffuseCalculator, Scratch scratch, int i, int j) {
+		builder.vertex(scratch.x[j], scratch.y[j], scratch.z[j]);
 
-			builder.uv2(params.useParamLight ? params.packedLightCoords : reader.getLight(i));
+		float nx = scratch.nx[j];
+		float ny = scratch.ny[j];
+		float nz = scratch.nz[j];
 
-			builder.normal(nx, ny, nz);
+		byte r, g, b, a;
+		if (params.useParamColor) {
+			r = (byte) params.r;
+			g = (byte) params.g;
+			b = (byte) params.b;
+			a = (byte) params.a;
+		} else {
+			r = reader.getR(i);
+			g = reader.getG(i);
+			b = reader.getB(i);
+			a = reader.getA(i);
+		}
+		if (context.outputColorDiffuse) {
+			float instanceDiffuse = diffuseCalculator.getDiffuse(nx, ny, nz);
+			int colorR = transformColor(r, instanceDiffuse);
+			int colorG = transformColor(g, instanceDiffuse);
+			int colorB = transformColor(b, instanceDiffuse);
+			builder.color(colorR, colorG, colorB, a);
+		} else {
+			builder.color(r, g, b, a);
+		}
 
-			builder.endVertex();
+		float u = reader.getU(i);
+		float v = reader.getV(i);
+		if (params.spriteShiftFunc != null) {
+			params.spriteShiftFunc.shift(builder, u, v);
+		} else {
+			builder.uv(u, v);
 		}
+
+		// not always used, but will be ignored by formats that don't use it
+		builder.overlayCoords(params.overlay);
+
+		builder.uv2(params.useParamLight ? params.packedLightCoords : reader.getLight(i));
+
+		builder.normal(nx, ny, nz);
+
+		builder.endVertex();
 	}
 
 	public boolean isEmpty() {
@@ -135,6 +203,80 @@ public class ModelTransformer {
 		void shift(VertexConsumer builder, float u, float v);
 	}
 
+	/**
+	 * Per thread buffers for a block of vertices, split by component.
+	 */
+	private static class Scratch {
+		final float[] x = new float[BLOCK_SIZE];
+		final float[] y = new float[BLOCK_SIZE];
+		final float[] z = new float[BLOCK_SIZE];
+		final float[] nx = new float[BLOCK_SIZE];
+		final float[] ny = new float[BLOCK_SIZE];
+		final float[] nz = new float[BLOCK_SIZE];
+
+		final float[] pose = new float[16];
+		final float[] poseNormal = new float[9];
+		final FloatBuffer poseBuffer = FloatBuffer.wrap(pose);
+		final FloatBuffer poseNormalBuffer = FloatBuffer.wrap(poseNormal);
+
+		final float[] modelMat = new float[16];
+		final float[] normalMat = new float[9];
+
+		final UvCapture uv = new UvCapture();
+	}
+
+	/**
+	 * Catches the coordinates a {@link SpriteShiftFunc} writes, so they can go out with the rest of the vertex.
+	 */
+	private static class UvCapture implements VertexConsumer {
+		float u;
+		float v;
+
+		@Override
+		public VertexConsumer uv(float u, float v) {
+			this.u = u;
+			this.v = v;
+			return this;
+		}
+
+		@Override
+		public VertexConsumer vertex(double x, double y, double z) {
+			return this;
+		}
+
+		@Override
+		public VertexConsumer color(int r, int g, int b, int a) {
+			return this;
+		}
+
+		@Override
+		public VertexConsumer overlayCoords(int u, int v) {
+			return this;
+		}
+
+		@Override
+		public VertexConsumer uv2(int u, int v) {
+			return this;
+		}
+
+		@Override
+		public VertexConsumer normal(float x, float y, float z) {
+			return this;
+		}
+
+		@Override
+		public void endVertex() {
+		}
+
+		@Override
+		public void defaultColor(int r, int g, int b, int a) {
+		}
+
+		@Override
+		public void unsetDefaultColor() {
+		}
+	}
+
 	public static class Context {
 		/**
 		 * Do we need to include the PoseStack transforms in our transformation of the normal?
@@ -147,11 +289,25 @@ public class ModelTransformer {
 		public boolean outputColorDiffuse = true;
 	}
 
+	/**
+	 * The transform and vertex attributes of one instance.
+	 *
+	 * <p>
+	 *     Matrices are kept as plain floats and every operation works on them in place, so building up an instance's
+	 *     transform doesn't allocate. A Params object must only be used by one thread at a time.
+	 * </p>
+	 */
 	public static class Params implements Transform<Params> {
 
-		// Transform
-		public final Matrix4f model;
-		public final Matrix3f normal;
+		// Transform, element mRC is at row R, column C
+		private float m00, m01, m02, m03;
+		private float m10, m11, m12, m13;
+		private float m20, m21, m22, m23;
+		private float m30, m31, m32, m33;
+
+		private float n00, n01, n02;
+		private float n10, n11, n12;
+		private float n20, n21, n22;
 
 		// Vertex Coloring
 		public boolean useParamColor;
@@ -170,14 +326,26 @@ public class ModelTransformer {
 		public boolean useParamLight;
 		public int packedLightCoords;
 
+		// For reading mojang matrices without allocating
+		private final float[] tmp4 = new float[16];
+		private final float[] tmp3 = new float[9];
+		private final FloatBuffer tmp4Buffer = FloatBuffer.wrap(tmp4);
+		private final FloatBuffer tmp3Buffer = FloatBuffer.wrap(tmp3);
+
 		public Params() {
-			model = new Matrix4f();
-			normal = new Matrix3f();
+			loadDefault();
 		}
 
 		public void loadDefault() {
-			model.setIdentity();
-			normal.setIdentity();
+			m00 = 1; m01 = 0; m02 = 0; m03 = 0;
+			m10 = 0; m11 = 1; m12 = 0; m13 = 0;
+			m20 = 0; m21 = 0; m22 = 1; m23 = 0;
+			m30 = 0; m31 = 0; m32 = 0; m33 = 1;
+
+			n00 = 1; n01 = 0; n02 = 0;
+			n10 = 0; n11 = 1; n12 = 0;
+			n20 = 0; n21 = 0; n22 = 1;
+
 			useParamColor = true;
 			r = 0xFF;
 			g = 0xFF;
@@ -190,8 +358,15 @@ public class ModelTransformer {
 		}
 
 		public void load(Params from) {
-			model.load(from.model);
-			normal.load(from.normal);
+			m00 = from.m00; m01 = from.m01; m02 = from.m02; m03 = from.m03;
+			m10 = from.m10; m11 = from.m11; m12 = from.m12; m13 = from.m13;
+			m20 = from.m20; m21 = from.m21; m22 = from.m22; m23 = from.m23;
+			m30 = from.m30; m31 = from.m31; m32 = from.m32; m33 = from.m33;
+
+			n00 = from.n00; n01 = from.n01; n02 = from.n02;
+			n10 = from.n10; n11 = from.n11; n12 = from.n12;
+			n20 = from.n20; n21 = from.n21; n22 = from.n22;
+
 			useParamColor = from.useParamColor;
 			r = from.r;
 			g = from.g;
@@ -203,6 +378,58 @@ public class ModelTransformer {
 			packedLightCoords = from.packedLightCoords;
 		}
 
+		/**
+		 * Write {@code pose * model} into {@code dest}. Both arrays are 4x4, column major.
+		 */
+		public void storeModel(float[] p, float[] dest) {
+			dest[0] = p[0] * m00 + p[4] * m10 + p[8] * m20 + p[12] * m30;
+			dest[1] = p[1] * m00 + p[5] * m10 + p[9] * m20 + p[13] * m30;
+			dest[2] = p[2] * m00 + p[6] * m10 + p[10] * m20 + p[14] * m30;
+			dest[3] = p[3] * m00 + p[7] * m10 + p[11] * m20 + p[15] * m30;
+			dest[4] = p[0] * m01 + p[4] * m11 + p[8] * m21 + p[12] * m31;
+			dest[5] = p[1] * m01 + p[5] * m11 + p[9] * m21 + p[13] * m31;
+			dest[6] = p[2] * m01 + p[6] * m11 + p[10] * m21 + p[14] * m31;
+			dest[7] = p[3] * m01 + p[7] * m11 + p[11] * m21 + p[15] * m31;
+			dest[8] = p[0] * m02 + p[4] * m12 + p[8] * m22 + p[12] * m32;
+			dest[9] = p[1] * m02 + p[5] * m12 + p[9] * m22 + p[13] * m32;
+			dest[10] = p[2] * m02 + p[6] * m12 + p[10] * m22 + p[14] * m32;
+			dest[11] = p[3] * m02 + p[7] * m12 + p[11] * m22 + p[15] * m32;
+			dest[12] = p[0] * m03 + p[4] * m13 + p[8] * m23 + p[12] * m33;
+			dest[13] = p[1] * m03 + p[5] * m13 + p[9] * m23 + p[13] * m33;
+			dest[14] = p[2] * m03 + p[6] * m13 + p[10] * m23 + p[14] * m33;
+			dest[15] = p[3] * m03 + p[7] * m13 + p[11] * m23 + p[15] * m33;
+		}
+
+		/**
+		 * Write {@code pose * normal} into {@code dest}. Both arrays are 3x3, column major.
+		 */
+		public void storeNormal(float[] p, float[] dest) {
+			dest[0] = p[0] * n00 + p[3] * n10 + p[6] * n20;
+			dest[1] = p[1] * n00 + p[4] * n10 + p[7] * n20;
+			dest[2] = p[2] * n00 + p[5] * n10 + p[8] * n20;
+			dest[3] = p[0] * n01 + p[3] * n11 + p[6] * n21;
+			dest[4] = p[1] * n01 + p[4] * n11 + p[7] * n21;
+			dest[5] = p[2] * n01 + p[5] * n11 + p[8] * n21;
+			dest[6] = p[0] * n02 + p[3] * n12 + p[6] * n22;
+			dest[7] = p[1] * n02 + p[4] * n12 + p[7] * n22;
+			dest[8] = p[2] * n02 + p[5] * n12 + p[8] * n22;
+		}
+
+		/**
+		 * Write the normal matrix into {@code dest}, 3x3, column major.
+		 */
+		public void storeNormal(float[] dest) {
+			dest[0] = n00;
+			dest[1] = n10;
+			dest[2] = n20;
+			dest[3] = n01;
+			dest[4] = n11;
+			dest[5] = n21;
+			dest[6] = n02;
+			dest[7] = n12;
+			dest[8] = n22;
+		}
+
 		public Params color(int r, int g, int b, int a) {
 			this.useParamColor = true;
 			this.r = r;
@@ -248,46 +475,171 @@ public class ModelTransformer {
 
 		@Override
 		public Params multiply(Quaternion quaternion) {
-			model.multiply(quaternion);
-			normal.mul(quaternion);
+			return multiply(quaternion.i(), quaternion.j(), quaternion.k(), quaternion.r());
+		}
+
+		@Override
+		public Params multiply(float qx, float qy, float qz, float qw) {
+			// same rotation matrix as Matrix3f(Quaternion)
+			float xx = 2.0F * qx * qx;
+			float yy = 2.0F * qy * qy;
+			float zz = 2.0F * qz * qz;
+			float xy = qx * qy;
+			float yz = qy * qz;
+			float zx = qz * qx;
+			float xw = qx * qw;
+			float yw = qy * qw;
+			float zw = qz * qw;
+
+			float r00 = 1.0F - yy - zz;
+			float r11 = 1.0F - zz - xx;
+			float r22 = 1.0F - xx - yy;
+			float r10 = 2.0F * (xy + zw);
+			float r01 = 2.0F * (xy - zw);
+			float r20 = 2.0F * (zx - yw);
+			float r02 = 2.0F * (zx + yw);
+			float r21 = 2.0F * (yz + xw);
+			float r12 = 2.0F * (yz - xw);
+
+			float a0, a1, a2;
+
+			a0 = m00; a1 = m01; a2 = m02;
+			m00 = a0 * r00 + a1 * r10 + a2 * r20;
+			m01 = a0 * r01 + a1 * r11 + a2 * r21;
+			m02 = a0 * r02 + a1 * r12 + a2 * r22;
+
+			a0 = m10; a1 = m11; a2 = m12;
+			m10 = a0 * r00 + a1 * r10 + a2 * r20;
+			m11 = a0 * r01 + a1 * r11 + a2 * r21;
+			m12 = a0 * r02 + a1 * r12 + a2 * r22;
+
+			a0 = m20; a1 = m21; a2 = m22;
+			m20 = a0 * r00 + a1 * r10 + a2 * r20;
+			m21 = a0 * r01 + a1 * r11 + a2 * r21;
+			m22 = a0 * r02 + a1 * r12 + a2 * r22;
+
+			a0 = m30; a1 = m31; a2 = m32;
+			m30 = a0 * r00 + a1 * r10 + a2 * r20;
+			m31 = a0 * r01 + a1 * r11 + a2 * r21;
+			m32 = a0 * r02 + a1 * r12 + a2 * r22;
+
+			a0 = n00; a1 = n01; a2 = n02;
+			n00 = a0 * r00 + a1 * r10 + a2 * r20;
+			n01 = a0 * r01 + a1 * r11 + a2 * r21;
+			n02 = a0 * r02 + a1 * r12 + a2 * r22;
+
+			a0 = n10; a1 = n11; a2 = n12;
+			n10 = a0 * r00 + a1 * r10 + a2 * r20;
+			n11 = a0 * r01 + a1 * r11 + a2 * r21;
+			n12 = a0 * r02 + a1 * r12 + a2 * r22;
+
+			a0 = n20; a1 = n21; a2 = n22;
+			n20 = a0 * r00 + a1 * r10 + a2 * r20;
+			n21 = a0 * r01 + a1 * r11 + a2 * r21;
+			n22 = a0 * r02 + a1 * r12 + a2 * r22;
+
 			return this;
 		}
 
 		@Override
 		public Params scale(float pX, float pY, float pZ) {
-			model.multiply(Matrix4f.createScaleMatrix(pX, pY, pZ));
+			m00 *= pX; m10 *= pX; m20 *= pX; m30 *= pX;
+			m01 *= pY; m11 *= pY; m21 *= pY; m31 *= pY;
+			m02 *= pZ; m12 *= pZ; m22 *= pZ; m32 *= pZ;
+
 			if (pX == pY && pY == pZ) {
 				if (pX > 0.0F) {
 					return this;
 				}
 
-				normal.mul(-1.0F);
+				n00 = -n00; n01 = -n01; n02 = -n02;
+				n10 = -n10; n11 = -n11; n12 = -n12;
+				n20 = -n20; n21 = -n21; n22 = -n22;
 			}
 
 			float f = 1.0F / pX;
 			float f1 = 1.0F / pY;
 			float f2 = 1.0F / pZ;
 			float f3 = Mth.fastInvCubeRoot(f * f1 * f2);
-			normal.mul(Matrix3f.createScaleMatrix(f3 * f, f3 * f1, f3 * f2));
+			float sX = f3 * f;
+			float sY = f3 * f1;
+			float sZ = f3 * f2;
+			n00 *= sX; n10 *= sX; n20 *= sX;
+			n01 *= sY; n11 *= sY; n21 *= sY;
+			n02 *= sZ; n12 *= sZ; n22 *= sZ;
 			return this;
 		}
 
 		@Override
 		public Params translate(double x, double y, double z) {
-			model.multiplyWithTranslation((float) x, (float) y, (float) z);
+			float fx = (float) x;
+			float fy = (float) y;
+			float fz = (float) z;
+
+			m03 += m00 * fx + m01 * fy + m02 * fz;
+			m13 += m10 * fx + m11 * fy + m12 * fz;
+			m23 += m20 * fx + m21 * fy + m22 * fz;
+			m33 += m30 * fx + m31 * fy + m32 * fz;
 
 			return this;
 		}
 
 		@Override
 		public Params mulPose(Matrix4f pose) {
-			this.model.multiply(pose);
+			pose.store(tmp4Buffer);
+			float[] b = tmp4;
+
+			float a0, a1, a2, a3;
+
+			a0 = m00; a1 = m01; a2 = m02; a3 = m03;
+			m00 = a0 * b[0] + a1 * b[1] + a2 * b[2] + a3 * b[3];
+			m01 = a0 * b[4] + a1 * b[5] + a2 * b[6] + a3 * b[7];
+			m02 = a0 * b[8] + a1 * b[9] + a2 * b[10] + a3 * b[11];
+			m03 = a0 * b[12] + a1 * b[13] + a2 * b[14] + a3 * b[15];
+
+			a0 = m10; a1 = m11; a2 = m12; a3 = m13;
+			m10 = a0 * b[0] + a1 * b[1] + a2 * b[2] + a3 * b[3];
+			m11 = a0 * b[4] + a1 * b[5] + a2 * b[6] + a3 * b[7];
+			m12 = a0 * b[8] + a1 * b[9] + a2 * b[10] + a3 * b[11];
+			m13 = a0 * b[12] + a1 * b[13] + a2 * b[14] + a3 * b[15];
+
+			a0 = m20; a1 = m21; a2 = m22; a3 = m23;
+			m20 = a0 * b[0] + a1 * b[1] + a2 * b[2] + a3 * b[3];
+			m21 = a0 * b[4] + a1 * b[5] + a2 * b[6] + a3 * b[7];
+			m22 = a0 * b[8] + a1 * b[9] + a2 * b[10] + a3 * b[11];
+			m23 = a0 * b[12] + a1 * b[13] + a2 * b[14] + a3 * b[15];
+
+			a0 = m30; a1 = m31; a2 = m32; a3 = m33;
+			m30 = a0 * b[0] + a1 * b[1] + a2 * b[2] + a3 * b[3];
+			m31 = a0 * b[4] + a1 * b[5] + a2 * b[6] + a3 * b[7];
+			m32 = a0 * b[8] + a1 * b[9] + a2 * b[10] + a3 * b[11];
+			m33 = a0 * b[12] + a1 * b[13] + a2 * b[14] + a3 * b[15];
+
 			return this;
 		}
 
 		@Override
 		public Params mulNormal(Matrix3f normal) {
-			this.normal.mul(normal);
+			normal.store(tmp3Buffer);
+			float[] b = tmp3;
+
+			float a0, a1, a2;
+
+			a0 = n00; a1 = n01; a2 = n02;
+			n00 = a0 * b[0] + a1 * b[1] + a2 * b[2];
+			n01 = a0 * b[3] + a1 * b[4] + a2 * b[5];
+			n02 = a0 * b[6] + a1 * b[7] + a2 * b[8];
+
+			a0 = n10; a1 = n11; a2 = n12;
+			n10 = a0 * b[0] + a1 * b[1] + a2 * b[2];
+			n11 = a0 * b[3] + a1 * b[4] + a2 * b[5];
+			n12 = a0 * b[6] + a1 * b[7] + a2 * b[8];
+
+			a0 = n20; a1 = n21; a2 = n22;
+			n20 = a0 * b[0] + a1 * b[1] + a2 * b[2];
+			n21 = a0 * b[3] + a1 * b[4] + a2 * b[5];
+			n22 = a0 * b[6] + a1 * b[7] + a2 * b[8];
+
 			return this;
 		}
 
@@ -0,0 +1,65 @@
+package com.jozufozu.flywheel.core.model;
+
+/**
+ * One vertex at a time. Always available.
+ */
+public class ScalarTransformKernel implements TransformKernel {
+
+	ScalarTransformKernel() {
+	}
+
+	@Override
+	public void transformPositions(float[] mat, float[] x, float[] y, float[] z, int count) {
+		transformPositions(mat, x, y, z, 0, count);
+	}
+
+	@Override
+	public void transformNormals(float[] mat, float[] x, float[] y, float[] z, int count) {
+		transformNormals(mat, x, y, z, 0, count);
+	}
+
+	static void transformPositions(float[] mat, float[] x, float[] y, float[] z, int from, int to) {
+		float m00 = mat[0], m10 = mat[1], m20 = mat[2];
+		float m01 = mat[4], m11 = mat[5], m21 = mat[6];
+		float m02 = mat[8], m12 = mat[9], m22 = mat[10];
+		float m03 = mat[12], m13 = mat[13], m23 = mat[14];
+
+		for (int i = from; i < to; i++) {
+			float px = x[i];
+			float py = y[i];
+			float pz = z[i];
+
+			x[i] = m00 * px + m01 * py + m02 * pz + m03;
+			y[i] = m10 * px + m11 * py + m12 * pz + m13;
+			z[i] = m20 * px + m21 * py + m22 * pz + m23;
+		}
+	}
+
+	static void transformNormals(float[] mat, float[] x, float[] y, float[] z, int from, int to) {
+		float m00 = mat[0], m10 = mat[1], m20 = mat[2];
+		float m01 = mat[3], m11 = mat[4], m21 = mat[5];
+		float m02 = mat[6], m12 = mat[7], m22 = mat[8];
+
+		for (int i = from; i < to; i++) {
+			float nx = x[i];
+			float ny = y[i];
+			float nz = z[i];
+
+			float tx = m00 * nx + m01 * ny + m02 * nz;
+			float ty = m10 * nx + m11 * ny + m12 * nz;
+			float tz = m20 * nx + m21 * ny + m22 * nz;
+
+			float lengthSqr = tx * tx + ty * ty + tz * tz;
+			if (lengthSqr >= 1e-5f) {
+				float scale = 1f / (float) Math.sqrt(lengthSqr);
+				tx *= scale;
+				ty *= scale;
+				tz *= scale;
+			}
+
+			x[i] = tx;
+			y[i] = ty;
+			z[i] = tz;
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package com.jozufozu.flywheel.core.model;
+
+import com.jozufozu.flywheel.Flywheel;
+
+/**
+ * Transforms blocks of vertex positions and normals in place.
+ *
+ * <p>
+ *     Vertices are passed as separate arrays per component, so implementations can process several vertices per
+ *     instruction. Matrices are passed as column major float arrays, as written by {@code Matrix4f.store} and
+ *     {@code Matrix3f.store}.
+ * </p>
+ * <p>
+ *     The SIMD implementation needs the incubating {@code jdk.incubator.vector} module, which is only present when
+ *     the game is started with {@code --add-modules jdk.incubator.vector}. Without it, or with
+ *     {@code -Dflywheel.disableVectorTransform=true}, a scalar implementation is used instead.
+ * </p>
+ */
+public interface TransformKernel {
+
+	TransformKernel SCALAR = new ScalarTransformKernel();
+
+	/**
+	 * Transform positions by a 4x4 matrix, assuming w = 1.
+	 *
+	 * @param mat The matrix, 16 floats, column major.
+	 */
+	void transformPositions(float[] mat, float[] x, float[] y, float[] z, int count);
+
+	/**
+	 * Transform normals by a 3x3 matrix and normalize them. Normals too short to normalize are left as transformed.
+	 *
+	 * @param mat The matrix, 9 floats, column major.
+	 */
+	void transformNormals(float[] mat, float[] x, float[] y, float[] z, int count);
+
+	/**
+	 * @return The fastest kernel available in this JVM.
+	 */
+	static TransformKernel get() {
+		return Holder.BEST;
+	}
+
+	final class Holder {
+		private static final TransformKernel BEST = choose();
+
+		private Holder() {
+		}
+
+		private static TransformKernel choose() {
+			if (Boolean.getBoolean("flywheel.disableVectorTransform")) {
+				return SCALAR;
+			}
+
+			if (ModuleLayer.boot()
+					.findModule("jdk.incubator.vector")
+					.isEmpty()) {
+				return SCALAR;
+			}
+
+			try {
+				// compiled separately from the rest of the mod, so it can only be found by name
+				TransformKernel kernel = (TransformKernel) Class.forName("com.jozufozu.flywheel.core.model.VectorTransformKernel")
+						.getDeclaredConstructor()
+						.newInstance();
+				Flywheel.LOGGER.info("Using SIMD vertex transforms: {}", kernel);
+				return kernel;
+			} catch (Throwable e) {
+				// the module exists but we can't link against it
+				Flywheel.LOGGER.warn("Could not enable SIMD vertex transforms, falling back to scalar:", e);
+				return SCALAR;
+			}
+		}
+	}
+}
@@ -0,0 +1,13 @@
+package com.jozufozu.flywheel.mixin;
+
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+import net.minecraft.client.renderer.RenderStateShard;
+
+@Mixin(RenderStateShard.class)
+public interface RenderStateShardAccessor {
+
+	@Accessor("name")
+	String flywheel$getName();
+}
@@ -0,0 +1,52 @@
+package com.jozufozu.flywheel.mixin.matrix;
+
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+import com.mojang.math.Matrix4f;
+
+/**
+ * Read access to the elements of a {@link Matrix4f}, for math that can't afford to copy or allocate.
+ * <p>
+ *     Element {@code mRC} is at row {@code R}, column {@code C}.
+ * </p>
+ */
+@Mixin(Matrix4f.class)
+public interface Matrix4fAccessor {
+
+	@Accessor("m00")
+	float flywheel$m00();
+
+	@Accessor("m01")
+	float flywheel$m01();
+
+	@Accessor("m02")
+	float flywheel$m02();
+
+	@Accessor("m03")
+	float flywheel$m03();
+
+	@Accessor("m10")
+	float flywheel$m10();
+
+	@Accessor("m11")
+	float flywheel$m11();
+
+	@Accessor("m12")
+	float flywheel$m12();
+
+	@Accessor("m13")
+	float flywheel$m13();
+
+	@Accessor("m20")
+	float flywheel$m20();
+
+	@Accessor("m21")
+	float flywheel$m21();
+
+	@Accessor("m22")
+	float flywheel$m22();
+
+	@Accessor("m23")
+	float flywheel$m23();
+}
@@ -12,8 +12,11 @@ public interface DiffuseLightCalculator {
 		return forLevel(Minecraft.getInstance().level);
 	}
 
+	/**
+	 * @return A table for the level's lighting mode, since it's going to be used for a lot of vertices.
+	 */
 	static DiffuseLightCalculator forLevel(ClientLevel level) {
-		return level.effects().constantAmbientLight() ? NETHER : DEFAULT;
+		return level.effects().constantAmbientLight() ? DiffuseLightTable.NETHER : DiffuseLightTable.DEFAULT;
 	}
 
 	float getDiffuse(float normalX, float normalY, float normalZ);
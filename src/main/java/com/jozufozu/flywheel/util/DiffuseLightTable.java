@@ -0,0 +1,44 @@
+package com.jozufozu.flywheel.util;
+
+/**
+ * A {@link DiffuseLightCalculator} that looks the diffuse term up instead of computing it.
+ *
+ * <p>
+ *     Batched normals end up quantized to signed bytes by {@link RenderMath#nb} anyway, so the normal is quantized the
+ *     same way first. Both lighting modes are a clamped sum of one term per axis, so three 256 entry tables cover
+ *     every normal.
+ * </p>
+ */
+public final class DiffuseLightTable implements DiffuseLightCalculator {
+	public static final DiffuseLightTable DEFAULT = new DiffuseLightTable(DiffuseLightCalculator.DEFAULT);
+	public static final DiffuseLightTable NETHER = new DiffuseLightTable(DiffuseLightCalculator.NETHER);
+
+	private final float[] x = new float[256];
+	private final float[] y = new float[256];
+	private final float[] z = new float[256];
+
+	/**
+	 * @param exact The calculator to tabulate. It must be of the form {@code min(f(x) + g(y) + h(z), 1)}.
+	 */
+	public DiffuseLightTable(DiffuseLightCalculator exact) {
+		for (int i = Byte.MIN_VALUE; i <= Byte.MAX_VALUE; i++) {
+			// nb truncates, so each byte stands for the normals up to one step further from zero. Sample the middle.
+			float f = i == 0 ? 0 : (i + Math.signum(i) * 0.5f) / 127f;
+			x[i & 0xFF] = exact.getDiffuse(f, 0, 0);
+			y[i & 0xFF] = exact.getDiffuse(0, f, 0);
+			z[i & 0xFF] = exact.getDiffuse(0, 0, f);
+		}
+	}
+
+	@Override
+	public float getDiffuse(float normalX, float normalY, float normalZ) {
+		return getDiffuse(RenderMath.nb(normalX), RenderMath.nb(normalY), RenderMath.nb(normalZ));
+	}
+
+	/**
+	 * Look up the diffuse term for a normal that's already been quantized by {@link RenderMath#nb}.
+	 */
+	public float getDiffuse(byte normalX, byte normalY, byte normalZ) {
+		return Math.min(x[normalX & 0xFF] + y[normalY & 0xFF] + z[normalZ & 0xFF], 1f);
+	}
+}
@@ -1,6 +1,10 @@
 package com.jozufozu.flywheel.util;
 
+import org.lwjgl.system.MemoryUtil;
+
 import com.jozufozu.flywheel.backend.gl.buffer.VecBuffer;
+import com.mojang.math.Matrix3f;
+import com.mojang.math.Matrix4f;
 
 /**
  * @see com.jozufozu.flywheel.mixin.matrix.Matrix3fMixin
@@ -14,4 +18,30 @@ public interface MatrixWrite {
 	void flywheel$writeUnsafe(long ptr);
 
 	void flywheel$write(VecBuffer buf);
+
+	/**
+	 * Write a matrix into sequential memory in column major order.
+	 *
+	 * <p>
+	 *     Falls back to {@link Matrix4f#store} when the mixin isn't applied, like when running benchmarks outside the game.
+	 * </p>
+	 */
+	static void writeUnsafe(Matrix4f matrix, long ptr) {
+		if ((Object) matrix instanceof MatrixWrite write) {
+			write.flywheel$writeUnsafe(ptr);
+		} else {
+			matrix.store(MemoryUtil.memFloatBuffer(ptr, 16));
+		}
+	}
+
+	/**
+	 * @see #writeUnsafe(Matrix4f, long)
+	 */
+	static void writeUnsafe(Matrix3f matrix, long ptr) {
+		if ((Object) matrix instanceof MatrixWrite write) {
+			write.flywheel$writeUnsafe(ptr);
+		} else {
+			matrix.store(MemoryUtil.memFloatBuffer(ptr, 9));
+		}
+	}
 }
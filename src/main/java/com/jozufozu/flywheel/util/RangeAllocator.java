@@ -0,0 +1,140 @@
+package com.jozufozu.flywheel.util;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Hands out ranges of a space that can grow at the end, like slots in a GL buffer.
+ *
+ * <p>
+ *     Freed ranges are merged with their free neighbours and reused best-fit. Allocating and freeing both take
+ *     O(log n) in the number of free ranges. Anything that doesn't fit in a free range goes at the end, and freeing
+ *     the range at the end shrinks the space again.
+ * </p>
+ */
+public class RangeAllocator {
+
+	/**
+	 * Free ranges by start, mapped to their length.
+	 */
+	private final TreeMap<Integer, Integer> freeByStart = new TreeMap<>();
+	/**
+	 * Free ranges by length and then start, packed high and low.
+	 */
+	private final TreeSet<Long> freeBySize = new TreeSet<>();
+
+	private int end;
+	private int freeSpace;
+
+	/**
+	 * @param length The length of the range, must be positive.
+	 * @return The start of the range.
+	 */
+	public int alloc(int length) {
+		Long fit = freeBySize.ceiling(pack(length, 0));
+
+		if (fit == null) {
+			int start = end;
+			end += length;
+			return start;
+		}
+
+		return take(fit, length);
+	}
+
+	/**
+	 * Allocate out of a free range that starts before {@code limit}, without growing the space. Only the best fit and
+	 * the first free range are considered, so this may fail even though some other range would do.
+	 *
+	 * @return The start of the range, or -1 if nothing was found.
+	 */
+	public int allocFree(int length, int limit) {
+		Long fit = freeBySize.ceiling(pack(length, 0));
+		if (fit != null && (int) (long) fit < limit) {
+			return take(fit, length);
+		}
+
+		Map.Entry<Integer, Integer> first = freeByStart.firstEntry();
+		if (first != null && first.getKey() < limit && first.getValue() >= length) {
+			return take(pack(first.getValue(), first.getKey()), length);
+		}
+
+		return -1;
+	}
+
+	private int take(long free, int length) {
+		int start = (int) free;
+		int size = (int) (free >>> 32);
+
+		removeFree(start, size);
+		if (size > length) {
+			addFree(start + length, size - length);
+		}
+
+		return start;
+	}
+
+	/**
+	 * Give back a range returned by {@link #alloc}.
+	 */
+	public void free(int start, int length) {
+		if (length <= 0) return;
+
+		Map.Entry<Integer, Integer> before = freeByStart.lowerEntry(start);
+		if (before != null && before.getKey() + before.getValue() == start) {
+			removeFree(before.getKey(), before.getValue());
+			start = before.getKey();
+			length += before.getValue();
+		}
+
+		Integer after = freeByStart.get(start + length);
+		if (after != null) {
+			removeFree(start + length, after);
+			length += after;
+		}
+
+		if (start + length == end) {
+			end = start;
+		} else {
+			addFree(start, length);
+		}
+	}
+
+	/**
+	 * @return One past the last allocated unit, or how large the space has to be.
+	 */
+	public int getEnd() {
+		return end;
+	}
+
+	/**
+	 * @return How many units before the end aren't allocated.
+	 */
+	public int getFreeSpace() {
+		return freeSpace;
+	}
+
+	public void clear() {
+		freeByStart.clear();
+		freeBySize.clear();
+		end = 0;
+		freeSpace = 0;
+	}
+
+	private void addFree(int start, int length) {
+		freeByStart.put(start, length);
+		freeBySize.add(pack(length, start));
+		freeSpace += length;
+	}
+
+	private void removeFree(int start, int length) {
+		freeByStart.remove(start);
+		freeBySize.remove(pack(length, start));
+		freeSpace -= length;
+	}
+
+	private static long pack(int length, int start) {
+		return ((long) length << 32) | start;
+	}
+}
@@ -0,0 +1,83 @@
+package com.jozufozu.flywheel.util.box;
+
+import com.jozufozu.flywheel.repack.joml.FrustumIntersection;
+
+/**
+ * A mutable, axis aligned box with floating point bounds. Used to accumulate conservative bounds for culling.
+ *
+ * <p>
+ *     A freshly created or {@link #clear() cleared} box is empty and contains nothing.
+ * </p>
+ */
+public class FloatBox {
+	private float minX;
+	private float minY;
+	private float minZ;
+	private float maxX;
+	private float maxY;
+	private float maxZ;
+
+	public FloatBox() {
+		clear();
+	}
+
+	/**
+	 * Reset this box so that it contains nothing.
+	 */
+	public void clear() {
+		minX = minY = minZ = Float.POSITIVE_INFINITY;
+		maxX = maxY = maxZ = Float.NEGATIVE_INFINITY;
+	}
+
+	public boolean isEmpty() {
+		return minX > maxX || minY > maxY || minZ > maxZ;
+	}
+
+	/**
+	 * Grow this box to contain the given sphere.
+	 */
+	public void expandSphere(float x, float y, float z, float radius) {
+		minX = Math.min(minX, x - radius);
+		minY = Math.min(minY, y - radius);
+		minZ = Math.min(minZ, z - radius);
+		maxX = Math.max(maxX, x + radius);
+		maxY = Math.max(maxY, y + radius);
+		maxZ = Math.max(maxZ, z + radius);
+	}
+
+	/**
+	 * @return {@code true} if any part of this box might be inside the frustum.
+	 */
+	public boolean intersects(FrustumIntersection frustum) {
+		return !isEmpty() && frustum.testAab(minX, minY, minZ, maxX, maxY, maxZ);
+	}
+
+	public float getMinX() {
+		return minX;
+	}
+
+	public float getMinY() {
+		return minY;
+	}
+
+	public float getMinZ() {
+		return minZ;
+	}
+
+	public float getMaxX() {
+		return maxX;
+	}
+
+	public float getMaxY() {
+		return maxY;
+	}
+
+	public float getMaxZ() {
+		return maxZ;
+	}
+
+	@Override
+	public String toString() {
+		return "(" + minX + ", " + minY + ", " + minZ + ")->(" + maxX + ", " + maxY + ", " + maxZ + ')';
+	}
+}
@@ -9,11 +9,17 @@ public interface Rotate<Self> {
 
 	Self multiply(Quaternion quaternion);
 
+	/**
+	 * Rotate by the quaternion with the given components. Implementations can override this to avoid allocating.
+	 */
+	default Self multiply(float qx, float qy, float qz, float qw) {
+		return multiply(new Quaternion(qx, qy, qz, qw));
+	}
+
 	default Self rotate(Direction axis, float radians) {
 		if (radians == 0)
 			return (Self) this;
-		return multiply(axis.step()
-				.rotation(radians));
+		return multiplyRadians(axis.getStepX(), axis.getStepY(), axis.getStepZ(), radians);
 	}
 
 	default Self rotate(double angle, Direction.Axis axis) {
@@ -49,23 +55,32 @@ public interface Rotate<Self> {
 	default Self multiply(Vector3f axis, double angle) {
 		if (angle == 0)
 			return (Self) this;
-		return multiply(axis.rotationDegrees((float) angle));
+		return multiplyRadians(axis, (float) angle * ((float) Math.PI / 180F));
 	}
 
 	default Self multiplyRadians(Vector3f axis, double angle) {
+		return multiplyRadians(axis.x(), axis.y(), axis.z(), angle);
+	}
+
+	/**
+	 * Rotate around the given unit axis without creating a {@link Quaternion}.
+	 */
+	default Self multiplyRadians(float axisX, float axisY, float axisZ, double angle) {
 		if (angle == 0)
 			return (Self) this;
-		return multiply(axis.rotation((float) angle));
+		float half = (float) angle / 2.0F;
+		float sin = (float) Math.sin(half);
+		return multiply(axisX * sin, axisY * sin, axisZ * sin, (float) Math.cos(half));
 	}
 
 	default Self rotateToFace(Direction facing) {
 		switch (facing) {
-		case SOUTH -> multiply(Vector3f.YP.rotationDegrees(180));
-		case WEST -> multiply(Vector3f.YP.rotationDegrees(90));
-		case NORTH -> multiply(Vector3f.YP.rotationDegrees(0));
-		case EAST -> multiply(Vector3f.YP.rotationDegrees(270));
-		case UP -> multiply(Vector3f.XP.rotationDegrees(90));
-		case DOWN -> multiply(Vector3f.XN.rotationDegrees(90));
+		case SOUTH -> multiply(Vector3f.YP, 180);
+		case WEST -> multiply(Vector3f.YP, 90);
+		case NORTH -> multiply(Vector3f.YP, 0);
+		case EAST -> multiply(Vector3f.YP, 270);
+		case UP -> multiply(Vector3f.XP, 90);
+		case DOWN -> multiply(Vector3f.XN, 90);
 		}
 		return (Self) this;
 	}
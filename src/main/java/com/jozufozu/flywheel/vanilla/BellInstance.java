@@ -1,5 +1,6 @@
 package com.jozufozu.flywheel.vanilla;
 
+import com.jozufozu.flywheel.api.LodLevel;
 import com.jozufozu.flywheel.api.MaterialManager;
 import com.jozufozu.flywheel.api.instance.DynamicInstance;
 import com.jozufozu.flywheel.backend.instancing.blockentity.BlockEntityInstance;
@@ -11,11 +12,17 @@ import com.mojang.math.Quaternion;
 import com.mojang.math.Vector3f;
 
 import net.minecraft.client.renderer.blockentity.BellRenderer;
+import net.minecraft.core.BlockPos;
 import net.minecraft.util.Mth;
 import net.minecraft.world.level.block.entity.BellBlockEntity;
 
 public class BellInstance extends BlockEntityInstance<BellBlockEntity> implements DynamicInstance {
 
+	/**
+	 * Past this many blocks the bell is drawn without its rim.
+	 */
+	private static final float LOD_DISTANCE = 32;
+
 	private final OrientedData bell;
 
 	private float lastRingTime = Float.NaN;
@@ -57,10 +64,12 @@ public class BellInstance extends BlockEntityInstance<BellBlockEntity> implement
 	}
 
 	private OrientedData createBellInstance() {
+		BlockPos pos = getWorldPosition();
+
         return materialManager.defaultCutout()
                 .material(Materials.ORIENTED)
-				.model(blockEntity.getType(), BellInstance::createBellModel)
-				.createInstance();
+				.lod(blockEntity.getType(), LodLevel.of(BellInstance::createBellModel, LOD_DISTANCE), LodLevel.rest(BellInstance::createFarBellModel))
+				.createInstance(pos.getX() + 0.5, pos.getY() + 0.5, pos.getZ() + 0.5);
 	}
 
 	private static ModelPart createBellModel() {
@@ -77,4 +86,17 @@ public class BellInstance extends BlockEntityInstance<BellBlockEntity> implement
 				.endCuboid()
 				.build();
 	}
+
+	/**
+	 * Just the body, without the rim.
+	 */
+	private static ModelPart createFarBellModel() {
+		return ModelPart.builder("bell_far", 32, 32)
+				.sprite(BellRenderer.BELL_RESOURCE_LOCATION.sprite())
+				.cuboid()
+				.start(5.0F, 6.0F, 5.0F)
+				.size(6.0F, 7.0F, 6.0F)
+				.endCuboid()
+				.build();
+	}
 }
@@ -4,6 +4,7 @@ import java.util.Calendar;
 
 import javax.annotation.Nonnull;
 
+import com.jozufozu.flywheel.api.LodLevel;
 import com.jozufozu.flywheel.api.MaterialManager;
 import com.jozufozu.flywheel.api.instance.DynamicInstance;
 import com.jozufozu.flywheel.backend.instancing.blockentity.BlockEntityInstance;
@@ -19,6 +20,7 @@ import it.unimi.dsi.fastutil.floats.Float2FloatFunction;
 import net.minecraft.client.renderer.RenderType;
 import net.minecraft.client.renderer.Sheets;
 import net.minecraft.client.resources.model.Material;
+import net.minecraft.core.BlockPos;
 import net.minecraft.world.level.block.AbstractChestBlock;
 import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.ChestBlock;
@@ -30,6 +32,11 @@ import net.minecraft.world.level.block.state.properties.ChestType;
 
 public class ChestInstance<T extends BlockEntity & LidBlockEntity> extends BlockEntityInstance<T> implements DynamicInstance {
 
+	/**
+	 * Past this many blocks the lid is drawn without its latch.
+	 */
+	private static final float LOD_DISTANCE = 32;
+
 	private final OrientedData body;
 	private final ModelData lid;
 
@@ -116,11 +123,12 @@ public class ChestInstance<T extends BlockEntity & LidBlockEntity> extends Block
 	}
 
 	private ModelData lidInstance() {
+		BlockPos pos = getWorldPosition();
 
 		return materialManager.solid(RenderType.entitySolid(renderMaterial.atlasLocation()))
                 .material(Materials.TRANSFORMED)
-				.model("lid_" + renderMaterial.texture(), this::getLidModel)
-				.createInstance();
+				.lod("lid_" + renderMaterial.texture(), LodLevel.of(this::getLidModel, LOD_DISTANCE), LodLevel.rest(this::getFarLidModel))
+				.createInstance(pos.getX() + 0.5, pos.getY() + 0.5, pos.getZ() + 0.5);
 	}
 
 	private ModelPart getBaseModel() {
@@ -197,6 +205,40 @@ public class ChestInstance<T extends BlockEntity & LidBlockEntity> extends Block
 
 	}
 
+	/**
+	 * The lid without the latch.
+	 */
+	private ModelPart getFarLidModel() {
+
+		return switch (chestType) {
+			case LEFT -> ModelPart.builder("chest_lid_left_far", 64, 64)
+					.sprite(renderMaterial.sprite())
+					.cuboid()
+					.textureOffset(0, 0)
+					.start(0, 0, 1)
+					.size(15, 5, 14)
+					.endCuboid()
+					.build();
+			case RIGHT -> ModelPart.builder("chest_lid_right_far", 64, 64)
+					.sprite(renderMaterial.sprite())
+					.cuboid()
+					.textureOffset(0, 0)
+					.start(1, 0, 1)
+					.size(15, 5, 14)
+					.endCuboid()
+					.build();
+			default -> ModelPart.builder("chest_lid_far", 64, 64)
+					.sprite(renderMaterial.sprite())
+					.cuboid()
+					.textureOffset(0, 0)
+					.start(1, 0, 1)
+					.size(14, 5, 14)
+					.endCuboid()
+					.build();
+		};
+
+	}
+
 	public static boolean isChristmas() {
 		Calendar calendar = Calendar.getInstance();
 		return calendar.get(Calendar.MONTH) + 1 == 12 && calendar.get(Calendar.DATE) >= 24 && calendar.get(Calendar.DATE) <= 26;
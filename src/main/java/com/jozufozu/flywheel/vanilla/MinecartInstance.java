@@ -1,5 +1,7 @@
 package com.jozufozu.flywheel.vanilla;
 
+import com.jozufozu.flywheel.api.LodInstancer;
+import com.jozufozu.flywheel.api.LodLevel;
 import com.jozufozu.flywheel.api.MaterialManager;
 import com.jozufozu.flywheel.api.instance.DynamicInstance;
 import com.jozufozu.flywheel.api.instance.TickableInstance;
@@ -26,8 +28,14 @@ public class MinecartInstance<T extends AbstractMinecart> extends EntityInstance
 
 	private static final ResourceLocation MINECART_LOCATION = new ResourceLocation("textures/entity/minecart.png");
 
+	/**
+	 * Past this many blocks the body is drawn as a single box.
+	 */
+	private static final float BODY_LOD_DISTANCE = 48;
+
 	private final PoseStack stack = new PoseStack();
 
+	private final LodInstancer<ModelData> bodyLod;
 	private final ModelData body;
 	private ModelData contents;
 	private BlockState blockstate;
@@ -37,7 +45,8 @@ public class MinecartInstance<T extends AbstractMinecart> extends EntityInstance
 
 		blockstate = entity.getDisplayBlockState();
 		contents = getContents();
-		body = getBody();
+		bodyLod = getBodyLod();
+		body = bodyLod.createInstance(entity.getX(), entity.getY(), entity.getZ());
 	}
 
 	@Override
@@ -76,6 +85,7 @@ public class MinecartInstance<T extends AbstractMinecart> extends EntityInstance
 		double d0 = Mth.lerp(pt, entity.xOld, entity.getX());
 		double d1 = Mth.lerp(pt, entity.yOld, entity.getY());
 		double d2 = Mth.lerp(pt, entity.zOld, entity.getZ());
+		bodyLod.setPosition(body, d0, d1, d2);
 		Vec3 vector3d = entity.getPos(d0, d1, d2);
 		float f3 = Mth.lerp(pt, entity.xRotO, entity.getXRot());
 		if (vector3d != null) {
@@ -148,11 +158,10 @@ public class MinecartInstance<T extends AbstractMinecart> extends EntityInstance
 				.createInstance();
 	}
 
-	private ModelData getBody() {
+	private LodInstancer<ModelData> getBodyLod() {
 		return materialManager.solid(RenderType.entitySolid(MINECART_LOCATION))
 				.material(Materials.TRANSFORMED)
-				.model(entity.getType(), this::getBodyModel)
-				.createInstance();
+				.lod(entity.getType(), LodLevel.of(this::getBodyModel, BODY_LOD_DISTANCE), LodLevel.rest(this::getFarBodyModel));
 	}
 
 	private Model getBodyModel() {
@@ -165,4 +174,14 @@ public class MinecartInstance<T extends AbstractMinecart> extends EntityInstance
 				.cuboid().invertYZ().start(-8, y, -8).size(16, 8, 2).endCuboid()
 				.build();
 	}
+
+	/**
+	 * The outside of the body as one box. The texture doesn't line up, but it's only used where the cart is a few
+	 * pixels across.
+	 */
+	private Model getFarBodyModel() {
+		return ModelPart.builder("minecart_far", 64, 32)
+				.cuboid().invertYZ().start(-10, -5, -8).size(20, 10, 16).textureOffset(0, 10).endCuboid()
+				.build();
+	}
 }
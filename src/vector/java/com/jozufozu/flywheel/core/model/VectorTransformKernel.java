@@ -0,0 +1,83 @@
+package com.jozufozu.flywheel.core.model;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * As many vertices at a time as fit in the widest vector the CPU supports. Only load this class through
+ * {@link TransformKernel#get()}, it won't link without the {@code jdk.incubator.vector} module.
+ *
+ * <p>
+ *     This is the only class compiled against the incubating module, so it lives in the {@code vector} source set.
+ * </p>
+ */
+public class VectorTransformKernel implements TransformKernel {
+
+	private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+	private static final FloatVector ONE = FloatVector.broadcast(SPECIES, 1f);
+
+	VectorTransformKernel() {
+		// fail here rather than on first use if the module can't actually be used
+		FloatVector.zero(SPECIES);
+	}
+
+	@Override
+	public String toString() {
+		return "VectorTransformKernel[" + SPECIES.length() + " floats per vector]";
+	}
+
+	@Override
+	public void transformPositions(float[] mat, float[] x, float[] y, float[] z, int count) {
+		float m00 = mat[0], m10 = mat[1], m20 = mat[2];
+		float m01 = mat[4], m11 = mat[5], m21 = mat[6];
+		float m02 = mat[8], m12 = mat[9], m22 = mat[10];
+		float m03 = mat[12], m13 = mat[13], m23 = mat[14];
+
+		int bound = SPECIES.loopBound(count);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			FloatVector px = FloatVector.fromArray(SPECIES, x, i);
+			FloatVector py = FloatVector.fromArray(SPECIES, y, i);
+			FloatVector pz = FloatVector.fromArray(SPECIES, z, i);
+
+			px.mul(m00).add(py.mul(m01)).add(pz.mul(m02)).add(m03).intoArray(x, i);
+			px.mul(m10).add(py.mul(m11)).add(pz.mul(m12)).add(m13).intoArray(y, i);
+			px.mul(m20).add(py.mul(m21)).add(pz.mul(m22)).add(m23).intoArray(z, i);
+		}
+
+		ScalarTransformKernel.transformPositions(mat, x, y, z, i, count);
+	}
+
+	@Override
+	public void transformNormals(float[] mat, float[] x, float[] y, float[] z, int count) {
+		float m00 = mat[0], m10 = mat[1], m20 = mat[2];
+		float m01 = mat[3], m11 = mat[4], m21 = mat[5];
+		float m02 = mat[6], m12 = mat[7], m22 = mat[8];
+
+		int bound = SPECIES.loopBound(count);
+		int i = 0;
+		for (; i < bound; i += SPECIES.length()) {
+			FloatVector nx = FloatVector.fromArray(SPECIES, x, i);
+			FloatVector ny = FloatVector.fromArray(SPECIES, y, i);
+			FloatVector nz = FloatVector.fromArray(SPECIES, z, i);
+
+			FloatVector tx = nx.mul(m00).add(ny.mul(m01)).add(nz.mul(m02));
+			FloatVector ty = nx.mul(m10).add(ny.mul(m11)).add(nz.mul(m12));
+			FloatVector tz = nx.mul(m20).add(ny.mul(m21)).add(nz.mul(m22));
+
+			FloatVector lengthSqr = tx.mul(tx).add(ty.mul(ty)).add(tz.mul(tz));
+			VectorMask<Float> tooShort = lengthSqr.compare(VectorOperators.LT, 1e-5f);
+			// lanes that are too short divide by (nearly) zero, but get thrown away here
+			FloatVector scale = ONE.div(lengthSqr.sqrt())
+					.blend(1f, tooShort);
+
+			tx.mul(scale).intoArray(x, i);
+			ty.mul(scale).intoArray(y, i);
+			tz.mul(scale).intoArray(z, i);
+		}
+
+		ScalarTransformKernel.transformNormals(mat, x, y, z, i, count);
+	}
+}